@@ -0,0 +1,106 @@
+package com.qtihelper.demo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.qtihelper.demo.dto.canvas.CanvasQuizSummaryDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pages/sec for decoding one Canvas quiz list page and resolving its rel="next"
+ * link: the previous path (regex compiled per call, collection TypeReference)
+ * against the current one (CanvasLinkHeader, shared ObjectReader, streaming parse).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CanvasPaginationBenchmark {
+
+    @Param({ "10", "100" })
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader quizSummaryReader;
+    private byte[] page;
+    private String linkHeader;
+
+    @Setup
+    public void setUp() {
+        // Same unknown-property handling as Spring Boot's ObjectMapper
+        objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        quizSummaryReader = objectMapper.readerFor(CanvasQuizSummaryDto.class);
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < pageSize; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(1000 + i)
+                    .append(",\"title\":\"Quiz ").append(i).append('"')
+                    .append(",\"description\":\"<p>Weekly vocabulary check ").append(i).append("</p>\"")
+                    .append(",\"question_count\":20,\"points_possible\":20.0,\"time_limit\":30")
+                    .append(",\"published\":true,\"quiz_type\":\"assignment\"")
+                    .append(",\"html_url\":\"https://canvas.example/courses/1/quizzes/").append(1000 + i).append('"')
+                    .append(",\"allowed_attempts\":1,\"shuffle_answers\":false}");
+        }
+        page = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+        String base = "https://canvas.example/api/v1/courses/1/quizzes?per_page=100&page=";
+        linkHeader = "<" + base + "3>; rel=\"current\",<" + base + "4>; rel=\"next\",<" + base
+                + "2>; rel=\"prev\",<" + base + "1>; rel=\"first\",<" + base + "12>; rel=\"last\"";
+    }
+
+    @Benchmark
+    public void previousDecode(Blackhole blackhole) throws IOException {
+        List<CanvasQuizSummaryDto> quizzes = objectMapper.readValue(page,
+                new TypeReference<List<CanvasQuizSummaryDto>>() {
+                });
+        Pattern pattern = Pattern.compile("<([^>]+)>;\\s*rel=\"" + Pattern.quote("next") + "\"");
+        Matcher matcher = pattern.matcher(linkHeader);
+        blackhole.consume(quizzes);
+        blackhole.consume(matcher.find() ? matcher.group(1) : null);
+    }
+
+    @Benchmark
+    public void streamingDecode(Blackhole blackhole) throws IOException {
+        List<CanvasQuizSummaryDto> quizzes = CanvasQuizFetcher.readList(new ByteArrayInputStream(page),
+                quizSummaryReader);
+        blackhole.consume(quizzes);
+        blackhole.consume(CanvasLinkHeader.find(linkHeader, "next"));
+    }
+
+    @Benchmark
+    public String previousLinkParse() {
+        Matcher matcher = Pattern.compile("<([^>]+)>;\\s*rel=\"" + Pattern.quote("last") + "\"")
+                .matcher(linkHeader);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Benchmark
+    public String linkParse() {
+        return CanvasLinkHeader.find(linkHeader, "last");
+    }
+}
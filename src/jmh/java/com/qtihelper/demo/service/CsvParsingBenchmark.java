@@ -0,0 +1,64 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.model.StudentSubmission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads/sec for CsvSubmissionParser on a synthetic Canvas quiz export,
+ * across class sizes: the single-threaded parse against the chunked parallel
+ * parse. The parallel parse only splits exports of 512 KiB and up, so the
+ * smaller sizes measure its overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParsingBenchmark {
+
+    @Param({ "20" })
+    public int questionCount;
+
+    @Param({ "30", "300", "3000", "100000" })
+    public int studentCount;
+
+    private MockMultipartFile csvFile;
+    private CsvSubmissionParser parser;
+
+    @Setup
+    public void setUp() {
+        List<CanvasQuestionDto> questions = SyntheticQuizzes.questions(questionCount);
+        String csv = SyntheticQuizzes.canvasCsv(questions, SyntheticQuizzes.withAnswerTexts(questions,
+                SyntheticQuizzes.submissions(questions, studentCount, 42)));
+        csvFile = new MockMultipartFile("csvFile", "export.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+        parser = new CsvSubmissionParser();
+    }
+
+    @Benchmark
+    public List<StudentSubmission> parseSubmissions() throws IOException {
+        return parser.parseSubmissions(csvFile);
+    }
+
+    @Benchmark
+    public List<StudentSubmission> parseSubmissionsParallel() throws IOException {
+        return parser.parseSubmissionsParallel(csvFile.getBytes());
+    }
+}
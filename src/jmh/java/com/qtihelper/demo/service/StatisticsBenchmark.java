@@ -0,0 +1,64 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.StatisticsProperties;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.QuizStatistics;
+import com.qtihelper.demo.model.StudentSubmission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quizzes/sec for StatisticsService.computeStatistics across class sizes,
+ * with the application's default settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsBenchmark {
+
+    @Param({ "20" })
+    public int questionCount;
+
+    @Param({ "30", "300", "3000" })
+    public int studentCount;
+
+    private CanvasQuizDto quiz;
+    private List<CanvasQuestionDto> questions;
+    private List<StudentSubmission> submissions;
+    private StatisticsService statisticsService;
+
+    @Setup
+    public void setUp() {
+        quiz = SyntheticQuizzes.quiz(questionCount);
+        questions = SyntheticQuizzes.questions(questionCount);
+        submissions = SyntheticQuizzes.submissions(questions, studentCount, 42);
+        statisticsService = new StatisticsService(new StatisticsProperties(true, 0, 20000));
+    }
+
+    @TearDown
+    public void tearDown() {
+        statisticsService.shutdown();
+    }
+
+    @Benchmark
+    public QuizStatistics computeStatistics() {
+        return statisticsService.computeStatistics(quiz, questions, submissions);
+    }
+}
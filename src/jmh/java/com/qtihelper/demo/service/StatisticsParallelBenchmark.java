@@ -0,0 +1,71 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.StatisticsProperties;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.QuizStatistics;
+import com.qtihelper.demo.model.StudentSubmission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average time of StatisticsService.computeStatistics with per-question work
+ * run serially against the fork/join pool (default parallelism = CPU count).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsParallelBenchmark {
+
+    @Param({ "50" })
+    public int questionCount;
+
+    @Param({ "3000" })
+    public int studentCount;
+
+    private CanvasQuizDto quiz;
+    private List<CanvasQuestionDto> questions;
+    private List<StudentSubmission> submissions;
+    private StatisticsService serial;
+    private StatisticsService parallel;
+
+    @Setup
+    public void setUp() {
+        quiz = SyntheticQuizzes.quiz(questionCount);
+        questions = SyntheticQuizzes.questions(questionCount);
+        submissions = SyntheticQuizzes.submissions(questions, studentCount, 42);
+        serial = new StatisticsService(new StatisticsProperties(false, 0, 0));
+        parallel = new StatisticsService(new StatisticsProperties(true, 0, 0));
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallel.shutdown();
+    }
+
+    @Benchmark
+    public QuizStatistics serial() {
+        return serial.computeStatistics(quiz, questions, submissions);
+    }
+
+    @Benchmark
+    public QuizStatistics parallel() {
+        return parallel.computeStatistics(quiz, questions, submissions);
+    }
+}
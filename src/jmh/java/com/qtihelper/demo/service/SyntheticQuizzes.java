@@ -0,0 +1,136 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.StudentSubmission;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded generators for benchmark quizzes: multiple-choice questions with
+ * four options (the first one correct) and students whose ability drives
+ * both their answers and their total score, so groups and point-biserials
+ * look like real data.
+ *
+ * Responses name options by answer ID, as in the statistics CSVs; use
+ * {@link #withAnswerTexts} for the option texts of a Canvas export, and
+ * {@link #canvasCsv} to write such an export.
+ */
+public final class SyntheticQuizzes {
+
+    private SyntheticQuizzes() {
+    }
+
+    public static CanvasQuizDto quiz(int questionCount) {
+        return new CanvasQuizDto(1L, "Synthetic Quiz", "Benchmark quiz", questionCount);
+    }
+
+    public static List<CanvasQuestionDto> questions(int questionCount) {
+        List<CanvasQuestionDto> questions = new ArrayList<>(questionCount);
+        for (int q = 0; q < questionCount; q++) {
+            List<CanvasAnswerDto> answers = new ArrayList<>(4);
+            for (int a = 0; a < 4; a++) {
+                long answerId = 1000L * (q + 1) + a;
+                answers.add(new CanvasAnswerDto(answerId, "Option " + (char) ('A' + a), null, null,
+                        a == 0 ? 100 : 0, null));
+            }
+            questions.add(new CanvasQuestionDto((long) q + 1, "Question " + (q + 1),
+                    "<p>Which option is correct for item " + (q + 1) + "?</p>", "multiple_choice_question",
+                    q + 1, 1.0, null, null, null, answers, null));
+        }
+        return questions;
+    }
+
+    public static List<StudentSubmission> submissions(List<CanvasQuestionDto> questions, int studentCount, long seed) {
+        Random random = new Random(seed);
+        List<StudentSubmission> submissions = new ArrayList<>(studentCount);
+        for (int s = 0; s < studentCount; s++) {
+            double ability = random.nextDouble();
+            Map<Integer, String> responses = new HashMap<>();
+            int correct = 0;
+            for (int q = 0; q < questions.size(); q++) {
+                List<CanvasAnswerDto> answers = questions.get(q).answers();
+                double roll = random.nextDouble();
+                String response;
+                if (roll < 0.05) {
+                    response = ""; // Skipped
+                } else if (roll < 0.25 + 0.7 * ability) {
+                    response = String.valueOf(answers.get(0).id());
+                    correct++;
+                } else {
+                    response = String.valueOf(answers.get(1 + random.nextInt(answers.size() - 1)).id());
+                }
+                responses.put(q + 1, response);
+            }
+
+            // Dense answers, as the CSV parsers produce
+            StudentSubmission submission = new StudentSubmission(questions.size());
+            submission.setStudentId(String.valueOf(100000 + s));
+            submission.setFirstName("Student");
+            submission.setLastName(String.valueOf(s));
+            submission.setTotalScore((double) correct);
+            responses.forEach(submission::setResponse);
+            submissions.add(submission);
+        }
+        return submissions;
+    }
+
+    /**
+     * Copies of submissions whose responses are option texts ("Option B")
+     * instead of answer IDs.
+     */
+    public static List<StudentSubmission> withAnswerTexts(List<CanvasQuestionDto> questions,
+            List<StudentSubmission> submissions) {
+        Map<String, String> textsById = new HashMap<>();
+        for (CanvasQuestionDto question : questions) {
+            for (CanvasAnswerDto answer : question.answers()) {
+                textsById.put(String.valueOf(answer.id()), answer.text());
+            }
+        }
+
+        List<StudentSubmission> copies = new ArrayList<>(submissions.size());
+        for (StudentSubmission submission : submissions) {
+            Map<Integer, String> responses = new HashMap<>();
+            submission.getResponses().forEach((position, response) -> responses.put(position,
+                    textsById.getOrDefault(response, response)));
+
+            StudentSubmission copy = new StudentSubmission(questions.size());
+            copy.setStudentId(submission.getStudentId());
+            copy.setFirstName(submission.getFirstName());
+            copy.setLastName(submission.getLastName());
+            copy.setTotalScore(submission.getTotalScore());
+            responses.forEach(copy::setResponse);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * Canvas quiz export CSV ("#n Student Response" columns) of the submissions.
+     */
+    public static String canvasCsv(List<CanvasQuestionDto> questions, List<StudentSubmission> submissions) {
+        StringBuilder csv = new StringBuilder("Quiz Name,Student First Name,Student Last Name,Student ID,"
+                + "Export Timestamp");
+        for (int q = 1; q <= questions.size(); q++) {
+            csv.append(",#").append(q).append(" Student Response");
+        }
+        csv.append('\n');
+
+        for (StudentSubmission submission : submissions) {
+            csv.append("Synthetic Quiz,").append(submission.getFirstName()).append(',')
+                    .append(submission.getLastName()).append(',').append(submission.getStudentId())
+                    .append(",2025-01-15T10:00:00Z");
+            for (int q = 1; q <= questions.size(); q++) {
+                String response = submission.getResponses().getOrDefault(q, "");
+                csv.append(',').append(response.contains(",") ? '"' + response + '"' : response);
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.qtihelper.demo.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls/sec for HtmlUtils.stripHtml on the kinds of text Canvas returns:
+ * plain option text, formatted question HTML, and HTML with images and
+ * equations (which take the placeholder paths).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlUtilsBenchmark {
+
+    @Param({ "plain", "markup", "media" })
+    public String kind;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = switch (kind) {
+            case "plain" -> "Option B";
+            case "markup" -> "<div class=\"question\"><p>Which of the <strong>following</strong> is "
+                    + "<em>not</em> a prime number?</p><ul><li>2</li><li>9</li></ul>&nbsp;&amp; explain</div>";
+            case "media" -> "<p>Solve <img class=\"equation_image\" src=\"/equation_images/x%5E2\" "
+                    + "alt=\"x^2 = 4\"> for x, using the figure <img src=\"/files/1/preview\" "
+                    + "alt=\"Parabola\"> and \\(x &gt; 0\\).</p>";
+            default -> throw new IllegalArgumentException("Unknown kind: " + kind);
+        };
+    }
+
+    @Benchmark
+    public String stripHtml() {
+        return HtmlUtils.stripHtml(text);
+    }
+}
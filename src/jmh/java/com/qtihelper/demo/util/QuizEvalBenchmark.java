@@ -0,0 +1,93 @@
+package com.qtihelper.demo.util;
+
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.service.SyntheticQuizzes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Responses/sec for the QuizEvalUtils matchers over a fixed mix of letter,
+ * text and multiple-answer responses (each op grades RESPONSES responses).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuizEvalBenchmark {
+
+    private static final int RESPONSES = 1024;
+
+    private AnswerIndex[] indexes;
+    private String[] letters;
+    private String[] texts;
+    private String[] multiple;
+
+    @Setup
+    public void setUp() {
+        List<CanvasQuestionDto> questions = SyntheticQuizzes.questions(20);
+        Random random = new Random(42);
+        indexes = new AnswerIndex[RESPONSES];
+        letters = new String[RESPONSES];
+        texts = new String[RESPONSES];
+        multiple = new String[RESPONSES];
+        for (int i = 0; i < RESPONSES; i++) {
+            indexes[i] = AnswerIndex.of(questions.get(i % questions.size()));
+            char letter = (char) ('A' + random.nextInt(4));
+            letters[i] = String.valueOf(letter);
+            texts[i] = random.nextBoolean() ? "Option " + letter : " option " + Character.toLowerCase(letter) + " ";
+            multiple[i] = letter + (random.nextBoolean() ? "," : "; ") + (char) ('A' + random.nextInt(4));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESPONSES)
+    public void matchByLetter(Blackhole blackhole) {
+        for (int i = 0; i < RESPONSES; i++) {
+            blackhole.consume(QuizEvalUtils.matchByLetter(letters[i], indexes[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESPONSES)
+    public void matchByText(Blackhole blackhole) {
+        for (int i = 0; i < RESPONSES; i++) {
+            blackhole.consume(QuizEvalUtils.matchByText(texts[i], indexes[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESPONSES)
+    public void parseMultipleAnswers(Blackhole blackhole) {
+        for (int i = 0; i < RESPONSES; i++) {
+            blackhole.consume(QuizEvalUtils.parseMultipleAnswers(multiple[i], indexes[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESPONSES)
+    public void isStudentAnswerMatch(Blackhole blackhole) {
+        for (int i = 0; i < RESPONSES; i++) {
+            AnswerIndex index = indexes[i];
+            for (int option = 0; option < index.size(); option++) {
+                blackhole.consume(QuizEvalUtils.isStudentAnswerMatch(index, texts[i], option,
+                        "multiple_choice_question"));
+            }
+        }
+    }
+}
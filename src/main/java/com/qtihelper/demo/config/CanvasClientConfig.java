@@ -0,0 +1,41 @@
+package com.qtihelper.demo.config;
+
+import com.qtihelper.demo.service.CanvasRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+import java.util.Objects;
+
+/**
+ * Single Canvas API client shared by the quiz fetcher and the migration service.
+ *
+ * The builder comes from Spring Boot, so the request factory is the pooled
+ * JDK HttpClient configured by spring.http.client.* (keep-alive connections
+ * are reused across calls). Every request passes through
+ * {@link CanvasRateLimiter}, so both services draw on the same rate-limit budget.
+ */
+@Configuration
+public class CanvasClientConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(CanvasClientConfig.class);
+
+    @Bean
+    public RestClient canvasRestClient(RestClient.Builder builder, CanvasProperties props,
+            CanvasRateLimiter rateLimiter) {
+        log.info("Initializing Canvas API client");
+        log.debug("Canvas URL: {}", props.url());
+        log.debug("Canvas token: {}****", props.token() != null && props.token().length() > 4
+                ? props.token().substring(0, 4)
+                : "****");
+
+        return builder
+                .baseUrl(Objects.requireNonNull(props.url(), "Canvas URL must be configured"))
+                .defaultHeader("Authorization",
+                        "Bearer " + Objects.requireNonNull(props.token(), "Canvas token must be configured"))
+                .requestInterceptor(rateLimiter)
+                .build();
+    }
+}
@@ -1,12 +1,85 @@
 package com.qtihelper.demo.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
 /**
  * Type-safe configuration for Canvas API.
  * Uses Java 21 Record for immutability.
  */
 @ConfigurationProperties(prefix = "app.canvas")
-public record CanvasProperties(String url, String token) {
+public record CanvasProperties(
+        String url,
+        String token,
+        @DefaultValue Pagination pagination,
+        @DefaultValue Cache cache,
+        @DefaultValue QuizContentCache quizContentCache,
+        @DefaultValue RateLimit rateLimit,
+        @DefaultValue Warmup warmup) {
     // Spring Boot 3.x+ binds records automatically via constructor binding
-}
\ No newline at end of file
+
+    /**
+     * Pagination settings for list endpoints (app.canvas.pagination.*).
+     *
+     * @param parallel       fetch remaining pages concurrently once rel="last" is known
+     * @param maxConcurrency maximum number of pages in flight at the same time
+     */
+    public record Pagination(
+            @DefaultValue("true") boolean parallel,
+            @DefaultValue("4") int maxConcurrency) {
+    }
+
+    /**
+     * Dashboard cache settings (app.canvas.cache.*).
+     *
+     * @param staleWhileRevalidate serve expired entries immediately and refresh them in the background
+     */
+    public record Cache(@DefaultValue("true") boolean staleWhileRevalidate) {
+    }
+
+    /**
+     * Quiz + question cache used by print and analytics (app.canvas.quiz-content-cache.*).
+     *
+     * @param maxWeight  total budget, measured in characters of cached quiz/question text
+     * @param ttlSeconds how long an entry may be served before it is refetched
+     */
+    public record QuizContentCache(
+            @DefaultValue("20000000") long maxWeight,
+            @DefaultValue("1800") long ttlSeconds) {
+    }
+
+    /**
+     * Shared Canvas HTTP client throttling (app.canvas.rate-limit.*).
+     * Concurrency follows AIMD: +1 per window of healthy responses, halved when
+     * X-Rate-Limit-Remaining drops below the low watermark or Canvas throttles.
+     *
+     * @param initialConcurrency requests allowed in flight at startup
+     * @param maxConcurrency     upper bound for the adaptive limit
+     * @param lowWatermark       X-Rate-Limit-Remaining below which the limit is halved
+     * @param maxRetries         retries for throttled (403/429) and 5xx/IO failures
+     * @param backoffMillis      base delay for full-jitter exponential backoff
+     */
+    public record RateLimit(
+            @DefaultValue("4") int initialConcurrency,
+            @DefaultValue("16") int maxConcurrency,
+            @DefaultValue("150") double lowWatermark,
+            @DefaultValue("3") int maxRetries,
+            @DefaultValue("500") long backoffMillis) {
+    }
+
+    /**
+     * Quiz catalog warm-up job (app.canvas.warmup.*): walks every course and
+     * prefetches its quiz list into CanvasCacheService.
+     *
+     * @param onStartup       run once when the application is ready
+     * @param intervalMinutes re-run periodically; 0 disables the schedule
+     * @param parallelism     courses fetched at the same time
+     * @param budgetSeconds   time limit of a run; courses not finished within it are skipped
+     */
+    public record Warmup(
+            @DefaultValue("true") boolean onStartup,
+            @DefaultValue("0") long intervalMinutes,
+            @DefaultValue("4") int parallelism,
+            @DefaultValue("120") long budgetSeconds) {
+    }
+}
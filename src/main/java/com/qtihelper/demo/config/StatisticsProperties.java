@@ -0,0 +1,18 @@
+package com.qtihelper.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Quiz statistics computation settings (app.statistics.*).
+ *
+ * @param parallel          compute per-question statistics on a dedicated fork/join pool
+ * @param parallelism       worker threads of that pool (0 = available processors)
+ * @param parallelThreshold minimum students × questions before a quiz is split across workers
+ */
+@ConfigurationProperties(prefix = "app.statistics")
+public record StatisticsProperties(
+        @DefaultValue("true") boolean parallel,
+        @DefaultValue("0") int parallelism,
+        @DefaultValue("20000") long parallelThreshold) {
+}
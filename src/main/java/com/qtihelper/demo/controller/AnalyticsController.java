@@ -1,23 +1,45 @@
 package com.qtihelper.demo.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
 import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.AnalyticsRollup;
+import com.qtihelper.demo.model.DistractorAnalysis;
 import com.qtihelper.demo.model.QuizStatistics;
 import com.qtihelper.demo.model.StudentSubmission;
-import com.qtihelper.demo.service.CanvasQuizFetcher;
+import com.qtihelper.demo.service.DistractorAnalysisService;
+import com.qtihelper.demo.service.IncrementalStatisticsService;
+import com.qtihelper.demo.service.MappedUpload;
+import com.qtihelper.demo.service.QuizContentCache;
+import com.qtihelper.demo.service.QuizRollupService;
+import com.qtihelper.demo.service.QuizRollupService.QuizUpload;
+import com.qtihelper.demo.service.ResponseMatrix;
 import com.qtihelper.demo.service.StatisticsService;
 import com.qtihelper.demo.service.StudentSubmissionParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * REST controller for quiz analytics endpoints.
@@ -28,18 +50,32 @@ public class AnalyticsController {
 
     private static final Logger log = LoggerFactory.getLogger(AnalyticsController.class);
 
+    // Largest uncompressed file accepted from a roll-up archive
+    private static final int MAX_ARCHIVE_ENTRY_BYTES = 64 * 1024 * 1024;
+    private static final TypeReference<List<CanvasQuestionDto>> QUESTION_LIST = new TypeReference<>() {
+    };
+
     private final StatisticsService statisticsService;
-    private final CanvasQuizFetcher quizFetcher;
+    private final IncrementalStatisticsService incrementalStatisticsService;
+    private final DistractorAnalysisService distractorAnalysisService;
+    private final QuizRollupService quizRollupService;
+    private final QuizContentCache quizContentCache;
     private final StudentSubmissionParser submissionParser;
     private final ObjectMapper objectMapper;
 
     public AnalyticsController(
             StatisticsService statisticsService,
-            CanvasQuizFetcher quizFetcher,
+            IncrementalStatisticsService incrementalStatisticsService,
+            DistractorAnalysisService distractorAnalysisService,
+            QuizRollupService quizRollupService,
+            QuizContentCache quizContentCache,
             StudentSubmissionParser submissionParser,
             ObjectMapper objectMapper) {
         this.statisticsService = statisticsService;
-        this.quizFetcher = quizFetcher;
+        this.incrementalStatisticsService = incrementalStatisticsService;
+        this.distractorAnalysisService = distractorAnalysisService;
+        this.quizRollupService = quizRollupService;
+        this.quizContentCache = quizContentCache;
         this.submissionParser = submissionParser;
         this.objectMapper = objectMapper;
     }
@@ -47,6 +83,10 @@ public class AnalyticsController {
     /**
      * Compute quiz statistics from uploaded CSV.
      * Supports both online (Canvas API) and offline (local JSON) modes.
+     * With incremental=true the CSV only needs the new or late submissions:
+     * they are merged into the quiz's stored statistics (students already
+     * counted are skipped). Otherwise nothing is stored unless store=true,
+     * which makes the upload replace the quiz's stored statistics.
      * 
      * POST /api/analytics/statistics
      */
@@ -55,40 +95,43 @@ public class AnalyticsController {
             @RequestParam(value = "courseId", required = false) String courseId,
             @RequestParam(value = "quizId", required = false) Long quizId,
             @RequestParam("file") MultipartFile csvFile,
-            @RequestParam(value = "quizFile", required = false) MultipartFile quizFile) {
+            @RequestParam(value = "quizFile", required = false) MultipartFile quizFile,
+            @RequestParam(value = "incremental", defaultValue = "false") boolean incremental,
+            @RequestParam(value = "store", defaultValue = "false") boolean store) {
 
-        log.info("Computing statistics with CSV file");
+        log.info("Computing statistics with CSV file (incremental: {}, store: {})", incremental, store);
 
         try {
-            CanvasQuizDto quiz;
-            List<CanvasQuestionDto> questions;
-
-            // OFFLINE MODE: Use uploaded quiz JSON
-            if (quizFile != null && !quizFile.isEmpty()) {
-                log.info("OFFLINE MODE: Using uploaded quiz metadata");
-                quiz = parseQuizJson(quizFile);
-                questions = parseQuestionsJson(quizFile);
-            }
-            // ONLINE MODE: Fetch from Canvas API
-            else if (courseId != null && quizId != null) {
-                log.info("ONLINE MODE: Fetching from Canvas API");
-                quiz = quizFetcher.getQuiz(courseId, String.valueOf(quizId));
-                questions = quizFetcher.getQuizQuestions(courseId, String.valueOf(quizId));
-            } else {
+            QuizContentCache.QuizContent content = resolveQuiz(courseId, quizId, quizFile);
+            if (content == null) {
                 log.warn("Missing required parameters for statistics computation");
                 return ResponseEntity.badRequest().build();
             }
+            CanvasQuizDto quiz = content.quiz();
+            List<CanvasQuestionDto> questions = content.questions();
 
-            // Parse CSV submissions
-            List<StudentSubmission> submissions = submissionParser.parseSubmissions(
-                    csvFile.getInputStream(), questions);
-
-            // Compute statistics
-            QuizStatistics statistics = statisticsService.computeStatistics(quiz, questions, submissions);
+            // Stream CSV submissions straight into statistics
+            QuizStatistics statistics;
+            try (Stream<StudentSubmission> submissions = submissionParser.streamSubmissions(
+                    csvFile.getInputStream(), questions)) {
+                if (incremental) {
+                    statistics = incrementalStatisticsService.merge(quiz, questions, submissions);
+                } else {
+                    ResponseMatrix matrix = ResponseMatrix.build(questions, submissions);
+                    statistics = statisticsService.computeStatistics(quiz, questions, matrix);
+                    if (store) {
+                        incrementalStatisticsService.replace(quiz, questions, matrix);
+                    }
+                }
+            }
 
-            log.info("Successfully computed statistics for {} students", submissions.size());
+            log.info("Successfully computed statistics for {} students",
+                    statistics.submissionStatistics().uniqueCount());
             return ResponseEntity.ok(statistics);
 
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected statistics upload: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Failed to compute statistics", e);
             return ResponseEntity.internalServerError().build();
@@ -96,48 +139,314 @@ public class AnalyticsController {
     }
 
     /**
-     * Parse quiz metadata from uploaded JSON file.
+     * Distractor analysis from uploaded CSV: per answer option, how often it
+     * was chosen overall and by the top/bottom 27%, with review flags.
+     * Same online/offline modes as statistics.
      * 
-     * Expected JSON format:
-     * {
-     * "quiz": { "id": 123, "title": "Quiz Name", ... },
-     * "questions": [ { "id": 1, "question_text": "...", ... }, ... ]
-     * }
+     * POST /api/analytics/distractors
      */
-    private CanvasQuizDto parseQuizJson(MultipartFile quizFile) throws IOException {
-        JsonNode root = objectMapper.readTree(quizFile.getInputStream());
+    @PostMapping("/distractors")
+    public ResponseEntity<DistractorAnalysis> analyzeDistractors(
+            @RequestParam(value = "courseId", required = false) String courseId,
+            @RequestParam(value = "quizId", required = false) Long quizId,
+            @RequestParam("file") MultipartFile csvFile,
+            @RequestParam(value = "quizFile", required = false) MultipartFile quizFile) {
 
-        // Check for nested "quiz" object or direct quiz fields
-        JsonNode quizNode = root.has("quiz") ? root.get("quiz") : root;
+        log.info("Computing distractor analysis with CSV file");
 
-        return objectMapper.treeToValue(quizNode, CanvasQuizDto.class);
+        try {
+            QuizContentCache.QuizContent content = resolveQuiz(courseId, quizId, quizFile);
+            if (content == null) {
+                log.warn("Missing required parameters for distractor analysis");
+                return ResponseEntity.badRequest().build();
+            }
+
+            ResponseMatrix matrix;
+            try (Stream<StudentSubmission> submissions = submissionParser.streamSubmissions(
+                    csvFile.getInputStream(), content.questions())) {
+                matrix = ResponseMatrix.build(content.questions(), submissions);
+            }
+            DistractorAnalysis analysis = distractorAnalysisService.analyze(
+                    content.quiz(), content.questions(), matrix);
+
+            log.info("Successfully analyzed distractors for {} students", matrix.studentCount());
+            return ResponseEntity.ok(analysis);
+
+        } catch (Exception e) {
+            log.error("Failed to compute distractor analysis", e);
+            return ResponseEntity.internalServerError().build();
+        }
     }
 
     /**
-     * Parse quiz questions from uploaded JSON file.
+     * Statistics for many quizzes at once, rolled up into per-course difficulty
+     * trends, reused questions and per-student score histories.
+     *
+     * Uploads are either paired by position, files[i] with quizFiles[i]
+     * (offline) or with quizIds[i] in courseId (online), or a ZIP archive of
+     * submission CSVs. In the archive, x.csv pairs with quiz JSON x.json next to
+     * it; without one, a CSV named by quiz ID (12345.csv) is fetched from
+     * Canvas. A top-level folder names the course (e.g. one folder per section).
+     *
+     * The response is newline-delimited JSON: one {"quiz":{...}} line per upload
+     * as soon as its statistics are ready (or its error), then
+     * {"done":true,"rollup":{...}}, or {"success":false,"error":...} if the
+     * roll-up itself fails since the status is already committed.
+     *
+     * Paired CSVs are memory-mapped ({@link MappedUpload}) and stay mapped
+     * until the response is written; archive entries have to be inflated and
+     * are held on the heap, up to MAX_ARCHIVE_ENTRY_BYTES each.
+     *
+     * POST /api/analytics/rollup
      */
-    private List<CanvasQuestionDto> parseQuestionsJson(MultipartFile quizFile) throws IOException {
-        JsonNode root = objectMapper.readTree(quizFile.getInputStream());
+    @PostMapping(value = "/rollup", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> rollUp(
+            @RequestParam(value = "courseId", required = false) String courseId,
+            @RequestParam(value = "quizIds", required = false) List<Long> quizIds,
+            @RequestParam(value = "files", required = false) List<MultipartFile> csvFiles,
+            @RequestParam(value = "quizFiles", required = false) List<MultipartFile> quizFiles,
+            @RequestParam(value = "archive", required = false) MultipartFile archive) {
+
+        // Take over every upload before the request thread returns
+        List<QuizUpload> uploads = new ArrayList<>();
+        List<MappedUpload> mapped = new ArrayList<>();
+        try {
+            if (archive != null && !archive.isEmpty()) {
+                uploads.addAll(readArchive(archive, courseId));
+            }
+            if (csvFiles != null) {
+                uploads.addAll(pairUploads(courseId, quizIds, csvFiles, quizFiles, mapped));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected roll-up upload: {}", e.getMessage());
+            mapped.forEach(MappedUpload::close);
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            log.error("Failed to read roll-up upload", e);
+            mapped.forEach(MappedUpload::close);
+            return ResponseEntity.internalServerError().build();
+        }
+        if (uploads.isEmpty()) {
+            log.warn("Roll-up request without any quiz uploads");
+            return ResponseEntity.badRequest().build();
+        }
 
-        // Check for nested "questions" array
-        JsonNode questionsNode = root.has("questions") ? root.get("questions") : root;
+        log.info("Rolling up {} quiz uploads", uploads.size());
+        StreamingResponseBody body = out -> {
+            try {
+                AnalyticsRollup rollup = quizRollupService.rollUp(uploads,
+                        result -> writeLine(out, Map.of("quiz", result)));
+                writeLine(out, Map.of("done", true, "rollup", rollup));
+            } catch (UncheckedIOException e) {
+                log.warn("Client disconnected while streaming roll-up");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Failed to roll up quiz statistics", e);
+                writeLine(out, Map.of(
+                        "success", false,
+                        "error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+            } finally {
+                mapped.forEach(MappedUpload::close);
+            }
+        };
 
-        if (!questionsNode.isArray()) {
-            throw new IllegalArgumentException("Expected 'questions' to be an array");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Uploads paired by position. Each CSV is mapped and added to
+     * {@code mapped}, which the caller closes once the roll-up is done.
+     */
+    private List<QuizUpload> pairUploads(String courseId, List<Long> quizIds, List<MultipartFile> csvFiles,
+            List<MultipartFile> quizFiles, List<MappedUpload> mapped) throws IOException {
+        boolean offline = quizFiles != null && !quizFiles.isEmpty();
+        int pairs = offline ? quizFiles.size() : quizIds != null ? quizIds.size() : 0;
+        if (pairs != csvFiles.size() || (!offline && courseId == null)) {
+            throw new IllegalArgumentException("Each CSV file needs a quiz file, or a quiz ID and the course ID");
         }
 
-        return objectMapper.readValue(
-                questionsNode.traverse(),
-                new TypeReference<List<CanvasQuestionDto>>() {
-                });
+        List<QuizUpload> uploads = new ArrayList<>();
+        for (int i = 0; i < csvFiles.size(); i++) {
+            MultipartFile csvFile = csvFiles.get(i);
+            String name = csvFile.getOriginalFilename() != null ? csvFile.getOriginalFilename() : "file " + (i + 1);
+            QuizContentCache.QuizContent content = offline
+                    ? parseQuizContent(quizFiles.get(i).getInputStream(), name)
+                    : null;
+            MappedUpload csv = MappedUpload.of(csvFile);
+            mapped.add(csv);
+            uploads.add(offline
+                    ? new QuizUpload(name, courseId, null, content, csv.buffer())
+                    : new QuizUpload(name, courseId, String.valueOf(quizIds.get(i)), null, csv.buffer()));
+        }
+        return uploads;
     }
 
     /**
-     * Get cached statistics (if previously computed).
+     * Uploads of a ZIP archive, ordered by entry path.
+     */
+    private List<QuizUpload> readArchive(MultipartFile archive, String courseId) throws IOException {
+        Map<String, byte[]> csvs = new TreeMap<>();
+        Map<String, byte[]> quizJsons = new TreeMap<>();
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String path = entry.getName();
+                String fileName = path.substring(path.lastIndexOf('/') + 1);
+                if (entry.isDirectory() || path.startsWith("__MACOSX/") || fileName.startsWith(".")) {
+                    continue;
+                }
+                String lowerCase = fileName.toLowerCase();
+                if (lowerCase.endsWith(".csv")) {
+                    csvs.put(path.substring(0, path.length() - 4), readEntry(zip, path));
+                } else if (lowerCase.endsWith(".json")) {
+                    quizJsons.put(path.substring(0, path.length() - 5), readEntry(zip, path));
+                }
+            }
+        }
+
+        List<QuizUpload> uploads = new ArrayList<>();
+        for (Map.Entry<String, byte[]> csv : csvs.entrySet()) {
+            String base = csv.getKey();
+            String name = base + ".csv";
+            int slash = base.indexOf('/');
+            String course = slash > 0 ? base.substring(0, slash) : courseId;
+            String fileName = base.substring(base.lastIndexOf('/') + 1);
+
+            byte[] quizJson = quizJsons.get(base);
+            if (quizJson != null) {
+                uploads.add(new QuizUpload(name, course, null,
+                        parseQuizContent(new ByteArrayInputStream(quizJson), name), csv.getValue()));
+            } else if (course != null && fileName.matches("\\d+")) {
+                uploads.add(new QuizUpload(name, course, fileName, null, csv.getValue()));
+            } else {
+                throw new IllegalArgumentException("No quiz JSON or quiz ID for " + name);
+            }
+        }
+        return uploads;
+    }
+
+    private static byte[] readEntry(ZipInputStream zip, String path) throws IOException {
+        byte[] bytes = zip.readNBytes(MAX_ARCHIVE_ENTRY_BYTES + 1);
+        if (bytes.length > MAX_ARCHIVE_ENTRY_BYTES) {
+            throw new IllegalArgumentException("Archive entry too large: " + path);
+        }
+        return bytes;
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Quiz and questions from the uploaded quiz JSON (offline mode) or from
+     * Canvas (online mode); null if neither was given.
+     */
+    private QuizContentCache.QuizContent resolveQuiz(String courseId, Long quizId, MultipartFile quizFile)
+            throws IOException {
+        // OFFLINE MODE: Use uploaded quiz JSON
+        if (quizFile != null && !quizFile.isEmpty()) {
+            log.info("OFFLINE MODE: Using uploaded quiz metadata");
+            return parseQuizJson(objectMapper.createParser(quizFile.getInputStream()));
+        }
+        // ONLINE MODE: Fetch from Canvas API
+        if (courseId != null && quizId != null) {
+            log.info("ONLINE MODE: Fetching from Canvas API");
+            return quizContentCache.get(courseId, String.valueOf(quizId));
+        }
+        return null;
+    }
+
+    /**
+     * Quiz JSON of a roll-up upload; malformed JSON rejects the request.
+     */
+    private QuizContentCache.QuizContent parseQuizContent(InputStream json, String name) {
+        try {
+            return parseQuizJson(objectMapper.createParser(json));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid quiz JSON for " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parse quiz metadata and questions from uploaded JSON.
+     * 
+     * Expected JSON format:
+     * {
+     * "quiz": { "id": 123, "title": "Quiz Name", ... },
+     * "questions": [ { "id": 1, "question_text": "...", ... }, ... ]
+     * }
+     * Without a "quiz" object, the other top-level fields are the quiz.
+     *
+     * Decoded in one streaming pass: the quiz and the questions are bound
+     * straight from the parser, without building a tree of the document.
+     */
+    private QuizContentCache.QuizContent parseQuizJson(JsonParser parser) throws IOException {
+        try (parser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object with 'quiz' and 'questions'");
+            }
+            CanvasQuizDto quiz = null;
+            boolean hasQuiz = false;
+            List<CanvasQuestionDto> questions = null;
+            ObjectNode quizFields = objectMapper.createObjectNode();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "quiz" -> {
+                        quiz = objectMapper.readValue(parser, CanvasQuizDto.class);
+                        hasQuiz = true;
+                    }
+                    case "questions" -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            throw new IllegalArgumentException("Expected 'questions' to be an array");
+                        }
+                        questions = objectMapper.readValue(parser, QUESTION_LIST);
+                    }
+                    default -> quizFields.set(field, objectMapper.readTree(parser));
+                }
+            }
+
+            if (questions == null) {
+                throw new IllegalArgumentException("Expected 'questions' to be an array");
+            }
+            if (!hasQuiz) {
+                quiz = objectMapper.treeToValue(quizFields, CanvasQuizDto.class);
+            }
+            return new QuizContentCache.QuizContent(quiz, questions);
+        }
+    }
+
+    /**
+     * Get stored statistics (if previously computed).
+     * 
+     * GET /api/analytics/quiz/{quizId}/statistics
      */
     @GetMapping("/quiz/{quizId}/statistics")
     public ResponseEntity<QuizStatistics> getStatistics(@PathVariable Long quizId) {
-        log.warn("Statistics caching not yet implemented");
-        return ResponseEntity.notFound().build();
+        return incrementalStatisticsService.get(quizId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Drop stored statistics so the next upload starts from scratch.
+     * 
+     * DELETE /api/analytics/quiz/{quizId}/statistics
+     */
+    @DeleteMapping("/quiz/{quizId}/statistics")
+    public ResponseEntity<Void> resetStatistics(@PathVariable Long quizId) {
+        return incrementalStatisticsService.reset(quizId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 }
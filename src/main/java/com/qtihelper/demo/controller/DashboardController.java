@@ -1,16 +1,26 @@
 package com.qtihelper.demo.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.qtihelper.demo.dto.canvas.CanvasCourseDto;
 import com.qtihelper.demo.dto.canvas.CanvasQuizSummaryDto;
 import com.qtihelper.demo.service.CanvasCacheService;
+import com.qtihelper.demo.service.CanvasRateLimiter;
+import com.qtihelper.demo.service.CatalogWarmupService;
+import com.qtihelper.demo.service.QuizContentCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Controller for dashboard with course/quiz browser.
@@ -19,7 +29,12 @@ import java.util.Map;
  * - GET /dashboard : Course/quiz browser UI
  * - GET /api/courses : AJAX endpoint for courses list
  * - GET /api/courses/{id}/quizzes : AJAX endpoint for quizzes list
+ * - GET /api/courses/{id}/quizzes/stream : NDJSON stream of quiz pages
  * - POST /api/cache/refresh : Manual cache refresh
+ * - GET/POST /api/cache/warmup : Quiz catalog warm-up progress / start a run
+ * - GET /api/cache/quiz-content : Quiz/question cache stats
+ * - GET /api/canvas/rate-limit : Adaptive Canvas request limit and throttling counters
+ * - DELETE /api/cache/quiz-content[/{courseId}/{quizId}] : Invalidate quiz/question cache
  */
 @Controller
 public class DashboardController {
@@ -27,9 +42,18 @@ public class DashboardController {
     private static final Logger log = LoggerFactory.getLogger(DashboardController.class);
 
     private final CanvasCacheService cacheService;
+    private final QuizContentCache quizContentCache;
+    private final CatalogWarmupService warmupService;
+    private final CanvasRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
 
-    public DashboardController(CanvasCacheService cacheService) {
+    public DashboardController(CanvasCacheService cacheService, QuizContentCache quizContentCache,
+            CatalogWarmupService warmupService, CanvasRateLimiter rateLimiter, ObjectMapper objectMapper) {
         this.cacheService = cacheService;
+        this.quizContentCache = quizContentCache;
+        this.warmupService = warmupService;
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -91,6 +115,63 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Streaming endpoint: Get quizzes for a course as newline-delimited JSON.
+     * Each line is one Canvas page ({"page":n,"quizzes":[...]}), written as soon
+     * as it arrives. The final line is a summary ({"done":true,...}) or an error
+     * ({"success":false,"error":...}) since the status is already committed.
+     * Query param: refresh=true to force cache refresh
+     */
+    @GetMapping(value = "/api/courses/{courseId}/quizzes/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> streamQuizzes(
+            @PathVariable String courseId,
+            @RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
+
+        log.info("API: Streaming quizzes for course {} (refresh={})", courseId, refresh);
+
+        StreamingResponseBody body = out -> {
+            long startTime = System.currentTimeMillis();
+            AtomicInteger pageCount = new AtomicInteger();
+            AtomicInteger quizCount = new AtomicInteger();
+
+            try {
+                cacheService.streamQuizzes(courseId, refresh, page -> {
+                    quizCount.addAndGet(page.size());
+                    writeLine(out, Map.of(
+                            "page", pageCount.incrementAndGet(),
+                            "quizzes", page));
+                });
+                writeLine(out, Map.of(
+                        "done", true,
+                        "count", quizCount.get(),
+                        "pages", pageCount.get(),
+                        "fetchTime", System.currentTimeMillis() - startTime));
+            } catch (UncheckedIOException e) {
+                log.warn("Client disconnected while streaming quizzes for course {}", courseId);
+            } catch (Exception e) {
+                log.error("API error streaming quizzes for course {}", courseId, e);
+                writeLine(out, Map.of(
+                        "success", false,
+                        "error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * AJAX endpoint: Manually refresh all caches.
      */
@@ -101,6 +182,7 @@ public class DashboardController {
 
         try {
             cacheService.clearAll();
+            quizContentCache.invalidateAll();
 
             // Pre-warm courses cache
             cacheService.getCourses(true);
@@ -115,4 +197,89 @@ public class DashboardController {
                     "error", e.getMessage()));
         }
     }
+
+    /**
+     * AJAX endpoint: Progress and counters of the quiz catalog warm-up job.
+     */
+    @GetMapping("/api/cache/warmup")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getWarmupStatus() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "status", warmupService.status()));
+    }
+
+    /**
+     * AJAX endpoint: Start a quiz catalog warm-up run in the background.
+     * Returns 409 if one is already running.
+     */
+    @PostMapping("/api/cache/warmup")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> startWarmup() {
+        log.info("API: Quiz catalog warm-up requested");
+
+        if (!warmupService.start()) {
+            return ResponseEntity.status(409).body(Map.of(
+                    "success", false,
+                    "error", "Warm-up already running",
+                    "status", warmupService.status()));
+        }
+        return ResponseEntity.accepted().body(Map.of(
+                "success", true,
+                "status", warmupService.status()));
+    }
+
+    /**
+     * AJAX endpoint: Quiz/question cache size and hit/miss counters.
+     */
+    @GetMapping("/api/cache/quiz-content")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getQuizContentCacheStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "stats", quizContentCache.stats()));
+    }
+
+    /**
+     * AJAX endpoint: Current adaptive limit on concurrent Canvas requests,
+     * requests in flight and throttling/retry counters since startup.
+     */
+    @GetMapping("/api/canvas/rate-limit")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getCanvasRateLimitStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "stats", rateLimiter.stats()));
+    }
+
+    /**
+     * AJAX endpoint: Invalidate cached quiz/questions for one quiz
+     * (e.g. after editing it in Canvas).
+     */
+    @DeleteMapping("/api/cache/quiz-content/{courseId}/{quizId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> invalidateQuizContent(
+            @PathVariable String courseId,
+            @PathVariable String quizId) {
+        log.info("API: Invalidating quiz content cache for {}/{}", courseId, quizId);
+
+        boolean removed = quizContentCache.invalidate(courseId, quizId);
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "removed", removed));
+    }
+
+    /**
+     * AJAX endpoint: Invalidate the whole quiz/question cache.
+     */
+    @DeleteMapping("/api/cache/quiz-content")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> invalidateAllQuizContent() {
+        log.info("API: Invalidating entire quiz content cache");
+
+        quizContentCache.invalidateAll();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Quiz content cache cleared"));
+    }
 }
@@ -5,17 +5,26 @@ import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
 import com.qtihelper.demo.model.PrintReport;
 import com.qtihelper.demo.model.QuizPrintViewModel;
 import com.qtihelper.demo.model.StudentSubmission;
-import com.qtihelper.demo.service.CanvasQuizFetcher;
 import com.qtihelper.demo.service.CsvSubmissionParser;
+import com.qtihelper.demo.service.MappedUpload;
 import com.qtihelper.demo.service.PrintReportGenerator;
+import com.qtihelper.demo.service.QuizContentCache;
 import com.qtihelper.demo.service.QuizPrintViewModelMapper;
 import jakarta.validation.constraints.NotBlank;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 /**
  * REST Controller for handling print report generation from Canvas quiz data.
@@ -29,17 +38,18 @@ import java.util.List;
 public class PrintReportController {
 
     private static final Logger log = LoggerFactory.getLogger(PrintReportController.class);
+    private static final String SERVER_TIMING = "Server-Timing";
 
-    private final CanvasQuizFetcher canvasFetcher;
+    private final QuizContentCache quizContentCache;
     private final CsvSubmissionParser csvParser;
     private final PrintReportGenerator reportGenerator;
     private final QuizPrintViewModelMapper viewModelMapper;
 
-    public PrintReportController(CanvasQuizFetcher canvasFetcher,
+    public PrintReportController(QuizContentCache quizContentCache,
             CsvSubmissionParser csvParser,
             PrintReportGenerator reportGenerator,
             QuizPrintViewModelMapper viewModelMapper) {
-        this.canvasFetcher = canvasFetcher;
+        this.quizContentCache = quizContentCache;
         this.csvParser = csvParser;
         this.reportGenerator = reportGenerator;
         this.viewModelMapper = viewModelMapper;
@@ -47,16 +57,26 @@ public class PrintReportController {
 
     /**
      * Generate print report from Canvas quiz data and CSV submissions.
+     *
+     * The quiz and questions are fetched on a virtual thread while the CSV is
+     * opened and its header resolved; grading starts once both are ready.
+     * Rows are then streamed: each is graded as it is parsed, so the "report"
+     * step includes parsing. With parallelCsv=true the export is instead parsed
+     * whole, in record-aligned chunks on all cores, during the Canvas fetch,
+     * which pays off for very large multi-section exports. Per-step durations
+     * are reported in the Server-Timing response header.
      */
     @PostMapping("/generate")
-    public QuizPrintViewModel generateReport(@NotBlank @RequestParam("courseId") String courseId,
+    public ResponseEntity<QuizPrintViewModel> generateReport(@NotBlank @RequestParam("courseId") String courseId,
             @NotBlank @RequestParam("quizId") String quizId,
             @RequestParam("csvFile") MultipartFile csvFile,
-            @RequestParam(value = "reportType", defaultValue = "slip") String reportType) {
+            @RequestParam(value = "reportType", defaultValue = "slip") String reportType,
+            @RequestParam(value = "parallelCsv", defaultValue = "false") boolean parallelCsv) {
 
         long startTime = System.currentTimeMillis();
         log.info("=== API: Starting print report generation ===");
-        log.info("Course ID: {}, Quiz ID: {}, Report Type: {}", courseId, quizId, reportType);
+        log.info("Course ID: {}, Quiz ID: {}, Report Type: {}, Parallel CSV: {}",
+                courseId, quizId, reportType, parallelCsv);
 
         try {
             // Validate inputs
@@ -70,43 +90,51 @@ public class PrintReportController {
                 throw new IllegalArgumentException("CSV file is required");
             }
 
-            // Fetch quiz from Canvas
-            log.info("Step 1/5: Fetching quiz from Canvas...");
-            CanvasQuizDto quiz = canvasFetcher.getQuiz(courseId, quizId);
-            if (quiz == null) {
-                throw new RuntimeException("Failed to fetch quiz from Canvas");
+            // Fetch quiz + questions (cached per course/quiz) while opening the CSV.
+            // Rows are parsed as they are graded, so the upload is never held as a list,
+            // unless the caller asked for a multi-core parse of a very large export
+            log.info("Steps 1-2/4: Fetching quiz and questions from Canvas while opening CSV file...");
+            Timed<QuizContentCache.QuizContent> content;
+            Timed<Stream<StudentSubmission>> csv;
+            Timed<PrintReport> report;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<Timed<QuizContentCache.QuizContent>> contentTask = executor
+                        .submit(timed(() -> quizContentCache.get(courseId, quizId)));
+                csv = timed(() -> openSubmissions(csvFile, parallelCsv)).call();
+
+                try (Stream<StudentSubmission> submissions = csv.value()) {
+                    content = await(contentTask);
+                    requireQuestions(content.value());
+
+                    log.info("Step 3/4: Parsing CSV file and generating print report...");
+                    report = timed(() -> reportGenerator.generateReport(content.value().quiz(),
+                            content.value().questions(), submissions, reportType)).call();
+                }
             }
-            log.info("Successfully fetched quiz: {}", quiz.title());
 
-            // Fetch questions
-            log.info("Step 2/5: Fetching quiz questions...");
-            List<CanvasQuestionDto> questions = canvasFetcher.getQuizQuestions(courseId, quizId);
-            if (questions.isEmpty()) {
-                throw new RuntimeException("No questions found for this quiz");
-            }
-            log.info("Successfully fetched {} questions", questions.size());
-
-            // Parse CSV
-            log.info("Step 3/5: Parsing CSV file...");
-            List<StudentSubmission> submissions = csvParser.parseSubmissions(csvFile);
-            if (submissions.isEmpty()) {
+            if (report.value().getStudentReports().isEmpty()) {
                 throw new RuntimeException("No student submissions found in CSV file");
             }
-            log.info("Successfully parsed {} student submissions", submissions.size());
-
-            // Generate report
-            log.info("Step 4/5: Generating print report...");
-            PrintReport report = reportGenerator.generateReport(quiz, questions, submissions, reportType);
-            log.info("Successfully generated report");
+            log.info("Successfully generated report for {} student submissions",
+                    report.value().getStudentReports().size());
 
             // Map to view model
-            log.info("Step 5/5: Mapping to view model...");
-            QuizPrintViewModel viewModel = viewModelMapper.mapToViewModel(quiz, questions, submissions, report);
+            log.info("Step 4/4: Mapping to view model...");
+            Timed<QuizPrintViewModel> viewModel = timed(() -> viewModelMapper.mapToViewModel(
+                    content.value().quiz(), content.value().questions(), report.value())).call();
 
             long totalDuration = System.currentTimeMillis() - startTime;
-            log.info("=== API: Report generation completed in {}ms ===", totalDuration);
-
-            return viewModel;
+            log.info("=== API: Report generation completed in {}ms (canvas {}ms, csv {}ms, report {}ms, map {}ms) ===",
+                    totalDuration, content.millis(), csv.millis(), report.millis(), viewModel.millis());
+
+            return ResponseEntity.ok()
+                    .header(SERVER_TIMING,
+                            "canvas;dur=" + content.millis(),
+                            "csv;dur=" + csv.millis(),
+                            "report;dur=" + report.millis(),
+                            "map;dur=" + viewModel.millis(),
+                            "total;dur=" + totalDuration)
+                    .body(viewModel.value());
 
         } catch (Exception e) {
             log.error("=== API: Error generating print report ===", e);
@@ -134,17 +162,17 @@ public class PrintReportController {
                 throw new IllegalArgumentException("Quiz ID is required");
             }
 
-            // Fetch quiz from Canvas
+            // Fetch quiz and questions (cached per course/quiz)
             log.info("Step 1/3: Fetching quiz from Canvas...");
-            CanvasQuizDto quiz = canvasFetcher.getQuiz(courseId, quizId);
+            QuizContentCache.QuizContent content = quizContentCache.get(courseId, quizId);
+            CanvasQuizDto quiz = content.quiz();
             if (quiz == null) {
                 throw new RuntimeException("Failed to fetch quiz from Canvas");
             }
             log.info("Successfully fetched quiz: {}", quiz.title());
 
-            // Fetch questions
             log.info("Step 2/3: Fetching quiz questions...");
-            List<CanvasQuestionDto> questions = canvasFetcher.getQuizQuestions(courseId, quizId);
+            List<CanvasQuestionDto> questions = content.questions();
             if (questions.isEmpty()) {
                 throw new RuntimeException("No questions found for this quiz");
             }
@@ -164,4 +192,63 @@ public class PrintReportController {
             throw new RuntimeException("Failed to generate blank quiz: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private static <T> Callable<Timed<T>> timed(Callable<T> step) {
+        return () -> {
+            long start = System.currentTimeMillis();
+            T value = step.call();
+            return new Timed<>(value, System.currentTimeMillis() - start);
+        };
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void requireQuestions(QuizContentCache.QuizContent content) {
+        CanvasQuizDto quiz = content.quiz();
+        if (quiz == null) {
+            throw new RuntimeException("Failed to fetch quiz from Canvas");
+        }
+        log.info("Successfully fetched quiz: {}", quiz.title());
+
+        List<CanvasQuestionDto> questions = content.questions();
+        if (questions.isEmpty()) {
+            throw new RuntimeException("No questions found for this quiz");
+        }
+        log.info("Successfully fetched {} questions", questions.size());
+    }
+
+    /**
+     * Submissions of the export: streamed from the upload once its header is
+     * read, or, with {@code parallel}, parsed whole up front.
+     */
+    private Stream<StudentSubmission> openSubmissions(MultipartFile csvFile, boolean parallel) throws IOException {
+        return parallel
+                ? parseParallel(csvFile).stream()
+                : csvParser.streamSubmissions(csvFile.getInputStream());
+    }
+
+    /**
+     * Parse the whole export on all cores, reading it through a memory map
+     * of the spooled upload rather than a heap copy.
+     */
+    private List<StudentSubmission> parseParallel(MultipartFile csvFile) throws IOException {
+        try (MappedUpload upload = MappedUpload.of(csvFile)) {
+            return csvParser.parseSubmissionsParallel(upload.buffer());
+        }
+    }
+
+    /**
+     * Result of a pipeline step together with its wall-clock duration.
+     */
+    private record Timed<T>(T value, long millis) {
+    }
+}
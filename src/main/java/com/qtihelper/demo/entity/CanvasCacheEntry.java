@@ -0,0 +1,91 @@
+package com.qtihelper.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Persistent tier of the Canvas cache.
+ * Stores one serialized Canvas list (courses, quizzes of a course, ...) per
+ * cache key so a restart can serve the last known data without hitting Canvas.
+ */
+@Entity
+@Table(name = "canvas_cache_entries")
+public class CanvasCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private String cacheKey; // 'courses', 'quizzes:<courseId>', etc.
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // Serialized DTO list JSON
+
+    @Column(nullable = false)
+    private Instant fetchedAt; // When the payload was fetched from Canvas
+
+    @Column(length = 500)
+    private String etag; // Validator from Canvas, if one was returned
+
+    @Column(length = 100)
+    private String lastModified; // Last-Modified from Canvas, if one was returned
+
+    // Constructors
+    public CanvasCacheEntry() {
+    }
+
+    public CanvasCacheEntry(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(Instant fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+}
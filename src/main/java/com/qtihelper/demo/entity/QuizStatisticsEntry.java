@@ -0,0 +1,80 @@
+package com.qtihelper.demo.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Persisted running statistics of one quiz.
+ * Stores the serialized StatisticsAccumulator so later CSV uploads can be
+ * merged in without re-reading earlier ones.
+ */
+@Entity
+@Table(name = "quiz_statistics")
+public class QuizStatisticsEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private Long quizId;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // Serialized accumulator JSON
+
+    @Column(nullable = false)
+    private Integer submissionCount; // Students accumulated so far
+
+    @Column(nullable = false)
+    private Instant updatedAt; // When the last upload was merged
+
+    // Constructors
+    public QuizStatisticsEntry() {
+    }
+
+    public QuizStatisticsEntry(Long quizId) {
+        this.quizId = quizId;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(Long quizId) {
+        this.quizId = quizId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Integer getSubmissionCount() {
+        return submissionCount;
+    }
+
+    public void setSubmissionCount(Integer submissionCount) {
+        this.submissionCount = submissionCount;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,58 @@
+package com.qtihelper.demo.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * A student already counted in a quiz's running statistics.
+ * Kept out of the QuizStatisticsEntry payload so merging an upload only
+ * inserts the new students instead of rewriting every ID seen so far.
+ */
+@Entity
+@Table(name = "quiz_statistics_students", uniqueConstraints = @UniqueConstraint(
+        name = "uk_quiz_statistics_student", columnNames = { "quiz_id", "student_id" }))
+public class QuizStatisticsStudent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "quiz_id", nullable = false)
+    private Long quizId;
+
+    @Column(name = "student_id", nullable = false)
+    private String studentId;
+
+    // Constructors
+    public QuizStatisticsStudent() {
+    }
+
+    public QuizStatisticsStudent(Long quizId, String studentId) {
+        this.quizId = quizId;
+        this.studentId = studentId;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(Long quizId) {
+        this.quizId = quizId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+}
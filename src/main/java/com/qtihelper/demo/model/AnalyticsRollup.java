@@ -0,0 +1,92 @@
+package com.qtihelper.demo.model;
+
+import com.qtihelper.demo.model.QuizStatistics.ScorePercentiles;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Roll-up of many quiz uploads: difficulty trends per course, questions that
+ * were reused across quizzes, and every student's scores across quizzes.
+ * Quizzes appear in upload order, which is taken to be chronological.
+ */
+public record AnalyticsRollup(
+        Instant generatedAt,
+        int quizCount, // Uploads that produced statistics
+        int failedQuizCount,
+        List<CourseRollup> courses,
+        List<ReusedQuestion> reusedQuestions,
+        List<StudentHistory> students) {
+
+    /**
+     * Outcome of one upload, streamed as soon as it finishes: statistics or an error.
+     */
+    public record QuizResult(
+            int index, // Position in the upload
+            String name, // File or archive entry name
+            String courseId,
+            QuizStatistics statistics,
+            String error) {
+    }
+
+    /**
+     * Quizzes of one course (or archive folder), in upload order.
+     */
+    public record CourseRollup(
+            String courseId, // null for quizzes without a course
+            int quizCount,
+            int submissionCount,
+            ScorePercentiles scores, // Over every submission of the course
+            Double difficultySlope, // Least-squares change in mean difficulty per quiz (2+ quizzes)
+            List<QuizTrendPoint> quizzes) {
+    }
+
+    /**
+     * One quiz as a point of its course's trend.
+     */
+    public record QuizTrendPoint(
+            String name,
+            Long quizId,
+            String quizTitle,
+            int studentCount,
+            double scoreAverage,
+            Double scoreMedian,
+            double meanDifficulty, // Mean correct ratio over the questions
+            double meanDiscrimination, // Mean top-bottom 27% discrimination index
+            Double alpha) {
+    }
+
+    /**
+     * A question whose text appears in more than one quiz.
+     */
+    public record ReusedQuestion(
+            String text, // HTML-stripped text of the first occurrence
+            List<QuestionOccurrence> occurrences) {
+    }
+
+    public record QuestionOccurrence(
+            String courseId,
+            Long quizId,
+            String quizTitle,
+            int questionNumber,
+            double difficultyIndex,
+            double discriminationIndex) {
+    }
+
+    /**
+     * A student's scores across quizzes, in upload order.
+     */
+    public record StudentHistory(
+            String studentId,
+            String name,
+            List<StudentScore> scores) {
+    }
+
+    public record StudentScore(
+            String courseId,
+            Long quizId,
+            String quizTitle,
+            Double score, // null if the export had no total score
+            double quizAverage) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.qtihelper.demo.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Distractor analysis: how every answer option of every question performed,
+ * overall and within the top and bottom 27% score groups.
+ */
+public record DistractorAnalysis(
+        Long quizId,
+        String quizTitle,
+        Instant generatedAt,
+        int studentCount,
+        int topStudentCount,
+        int bottomStudentCount,
+        List<QuestionDistractors> questions) {
+
+    /**
+     * Option breakdown of a single question.
+     */
+    public record QuestionDistractors(
+            int questionNumber,
+            String questionType,
+            int responses, // Students who answered
+            int otherResponses, // Answered without naming an option by ID (e.g. free text)
+            List<OptionAnalysis> options) {
+    }
+
+    /**
+     * How often an option was chosen and by whom.
+     */
+    public record OptionAnalysis(
+            String answerId,
+            String text,
+            boolean correct,
+            int selectedCount,
+            double selectedRatio, // Share of the question's responses
+            int topSelectedCount,
+            int middleSelectedCount,
+            int bottomSelectedCount,
+            double discrimination, // Top-group ratio minus bottom-group ratio
+            Double meanScore, // Mean total score of students who chose it (null if none scored)
+            List<OptionFlag> flags) {
+    }
+
+    /**
+     * Warnings worth reviewing when revising a question.
+     */
+    public enum OptionFlag {
+        /** Distractor chosen by fewer than 5% of the responders. */
+        NON_FUNCTIONING,
+        /** Distractor chosen more often by the top group than by the bottom group. */
+        ATTRACTS_TOP_GROUP,
+        /** Correct answer chosen more often by the bottom group than by the top group. */
+        KEY_FAVORS_BOTTOM_GROUP
+    }
+}
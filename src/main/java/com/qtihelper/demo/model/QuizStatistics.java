@@ -16,7 +16,10 @@ public record QuizStatistics(
         SubmissionStatistics submissionStatistics,
 
         // Question-level statistics
-        Map<Integer, QuestionStatistics> questionStatistics) {
+        Map<Integer, QuestionStatistics> questionStatistics,
+
+        // Test-level reliability
+        ReliabilityStatistics reliability) {
 
     /**
      * Aggregate submission statistics for the quiz.
@@ -30,10 +33,27 @@ public record QuizStatistics(
             Map<Integer, Integer> scores, // Score distribution (score -> count)
             double correctCountAverage, // Avg correct answers per student
             double incorrectCountAverage, // Avg incorrect answers per student
-            Double durationAverage // Avg time spent (optional)
+            Double durationAverage, // Avg time spent (optional)
+            ScorePercentiles percentiles // Score quantiles (null without scores)
     ) {
     }
 
+    /**
+     * Quantiles of the total score. Exact for small classes; estimated from a
+     * t-digest once many sections are combined (exact = false).
+     */
+    public record ScorePercentiles(
+            long count, // Scores summarized
+            boolean exact,
+            double min,
+            double p10,
+            double p25,
+            double median,
+            double p75,
+            double p90,
+            double max) {
+    }
+
     /**
      * Statistics for a single question.
      */
@@ -58,7 +78,8 @@ public record QuizStatistics(
             double variance,
             double stdev,
             double difficultyIndex, // Ratio of correct answers
-            Double alpha, // Cronbach's alpha (if n > 15)
+            Double alpha, // Cronbach's alpha of the whole quiz (if n > 15)
+            Double alphaIfDeleted, // Cronbach's alpha with this question removed (if n > 15)
 
             // Answer-level statistics
             Map<String, AnswerStatistics> answerStatistics) {
@@ -86,4 +107,16 @@ public record QuizStatistics(
             Double pointBiserial // Correlation with total score
     ) {
     }
+
+    /**
+     * Internal consistency of the quiz. Questions are scored 1 (correct) or 0,
+     * so Cronbach's alpha here is KR-20.
+     */
+    public record ReliabilityStatistics(
+            int itemCount, // Questions
+            int studentCount, // Submissions included
+            Double alpha, // Cronbach's alpha / KR-20 (if n > 15)
+            double totalScoreVariance // Variance of the number-correct score
+    ) {
+    }
 }
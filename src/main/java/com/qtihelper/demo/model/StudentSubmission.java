@@ -1,21 +1,47 @@
 package com.qtihelper.demo.model;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class StudentSubmission {
+    private static final String[] NO_RESPONSES = new String[0];
+    // Past this position answers are kept in a map rather than growing the array
+    private static final int MAX_DENSE_POSITION = 1024;
+
     private String firstName;
     private String lastName;
     private String studentId;
     private String quizName;
     private String exportTimestamp;
 
-    // Map: question position (1-based) -> student answer
-    private Map<Integer, String> responses = new HashMap<>();
+    // Dense by question position: responses[position - 1] is the student answer, null if none.
+    // Parsers share equal answer and column strings across an upload (see StringPool).
+    private String[] responses = NO_RESPONSES;
+    private int responseCount;
+    // Map: question position -> student answer, once set via setResponses or
+    // written at a position outside the array; takes over from the array
+    private Map<Integer, String> responseMap;
 
     // Total score for this submission
     private Double totalScore;
 
+    public StudentSubmission() {
+    }
+
+    /**
+     * @param questionCount number of questions in the quiz, to size the
+     *                      answer array up front
+     */
+    public StudentSubmission(int questionCount) {
+        this.responses = questionCount > 0 ? new String[Math.min(questionCount, MAX_DENSE_POSITION)] : NO_RESPONSES;
+    }
+
     // Getters & Setters
     public String getFirstName() {
         return firstName;
@@ -57,12 +83,72 @@ public class StudentSubmission {
         this.exportTimestamp = exportTimestamp;
     }
 
+    /**
+     * Answer to the question at a 1-based position, or null if none.
+     */
+    public String getResponse(int position) {
+        if (responseMap != null) {
+            return responseMap.get(position);
+        }
+        return position >= 1 && position <= responses.length ? responses[position - 1] : null;
+    }
+
+    /**
+     * Record the answer to the question at a 1-based position (null clears it).
+     * Positions are not validated here; parsers reject bad question numbers.
+     */
+    public void setResponse(int position, String response) {
+        if (responseMap == null && (position < 1 || position > responses.length)) {
+            if (response == null) {
+                return;
+            }
+            if (position < 1 || position > MAX_DENSE_POSITION) {
+                spillToMap();
+            } else {
+                responses = Arrays.copyOf(responses, Math.max(position, Math.min(responses.length * 2,
+                        MAX_DENSE_POSITION)));
+            }
+        }
+        if (responseMap != null) {
+            if (response != null) {
+                responseMap.put(position, response);
+            } else {
+                responseMap.remove(position);
+            }
+            return;
+        }
+        String previous = responses[position - 1];
+        responses[position - 1] = response;
+        responseCount += (response != null ? 1 : 0) - (previous != null ? 1 : 0);
+    }
+
+    /**
+     * Map: question position (1-based) -> student answer. Writes go through
+     * to this submission. Unless set via {@link #setResponses}, this is a view
+     * in position order.
+     */
     public Map<Integer, String> getResponses() {
-        return responses;
+        return responseMap != null ? responseMap : new ResponseView();
     }
 
+    /**
+     * Use {@code responses} as this submission's answers; later changes to
+     * that map are seen, as with {@link #getResponses()}.
+     */
     public void setResponses(Map<Integer, String> responses) {
-        this.responses = responses;
+        this.responses = NO_RESPONSES;
+        this.responseCount = 0;
+        this.responseMap = responses;
+    }
+
+    private void spillToMap() {
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < responses.length; i++) {
+            if (responses[i] != null) {
+                map.put(i + 1, responses[i]);
+            }
+        }
+        setResponses(map);
     }
 
     public Double getTotalScore() {
@@ -76,4 +162,91 @@ public class StudentSubmission {
     public String getFullName() {
         return firstName + " " + lastName;
     }
+
+    private final class ResponseView extends AbstractMap<Integer, String> {
+
+        @Override
+        public String get(Object key) {
+            return key instanceof Integer position ? getResponse(position) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public String put(Integer position, String response) {
+            String previous = getResponse(position);
+            setResponse(position, response);
+            return previous;
+        }
+
+        @Override
+        public String remove(Object key) {
+            String previous = get(key);
+            if (previous != null) {
+                setResponse((Integer) key, null);
+            }
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return responseMap != null ? responseMap.size() : responseCount;
+        }
+
+        @Override
+        public Set<Entry<Integer, String>> entrySet() {
+            if (responseMap != null) {
+                // A write through this view moved the answers into a map
+                return responseMap.entrySet();
+            }
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return responseCount;
+                }
+
+                @Override
+                public Iterator<Entry<Integer, String>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+                        private int last = -1;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < responses.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, String> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            last = next;
+                            next = advance(next + 1);
+                            return new SimpleImmutableEntry<>(last + 1, responses[last]);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last < 0) {
+                                throw new IllegalStateException();
+                            }
+                            setResponse(last + 1, null);
+                            last = -1;
+                        }
+
+                        private int advance(int from) {
+                            while (from < responses.length && responses[from] == null) {
+                                from++;
+                            }
+                            return from;
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
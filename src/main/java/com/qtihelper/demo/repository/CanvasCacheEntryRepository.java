@@ -0,0 +1,19 @@
+package com.qtihelper.demo.repository;
+
+import com.qtihelper.demo.entity.CanvasCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for the persistent Canvas cache tier.
+ */
+@Repository
+public interface CanvasCacheEntryRepository extends JpaRepository<CanvasCacheEntry, Long> {
+
+    /**
+     * Find a cache entry by its cache key.
+     */
+    Optional<CanvasCacheEntry> findByCacheKey(String cacheKey);
+}
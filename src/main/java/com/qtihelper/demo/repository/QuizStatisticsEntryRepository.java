@@ -0,0 +1,19 @@
+package com.qtihelper.demo.repository;
+
+import com.qtihelper.demo.entity.QuizStatisticsEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for persisted incremental quiz statistics.
+ */
+@Repository
+public interface QuizStatisticsEntryRepository extends JpaRepository<QuizStatisticsEntry, Long> {
+
+    /**
+     * Find the running statistics of a quiz.
+     */
+    Optional<QuizStatisticsEntry> findByQuizId(Long quizId);
+}
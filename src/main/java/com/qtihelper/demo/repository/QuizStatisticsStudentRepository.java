@@ -0,0 +1,34 @@
+package com.qtihelper.demo.repository;
+
+import com.qtihelper.demo.entity.QuizStatisticsStudent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Repository for the students counted in each quiz's running statistics.
+ */
+@Repository
+public interface QuizStatisticsStudentRepository extends JpaRepository<QuizStatisticsStudent, Long> {
+
+    /**
+     * Which of the given students are already counted for a quiz.
+     */
+    @Query("SELECT s.studentId FROM QuizStatisticsStudent s WHERE s.quizId = :quizId AND s.studentId IN :studentIds")
+    Set<String> findCountedStudentIds(@Param("quizId") Long quizId,
+            @Param("studentIds") Collection<String> studentIds);
+
+    /**
+     * Forget every student counted for a quiz (statistics reset or replaced).
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM QuizStatisticsStudent s WHERE s.quizId = :quizId")
+    void deleteByQuizId(@Param("quizId") Long quizId);
+}
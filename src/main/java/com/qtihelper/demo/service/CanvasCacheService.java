@@ -1,23 +1,48 @@
 package com.qtihelper.demo.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.qtihelper.demo.config.CanvasProperties;
 import com.qtihelper.demo.dto.canvas.CanvasCourseDto;
 import com.qtihelper.demo.dto.canvas.CanvasQuizSummaryDto;
+import com.qtihelper.demo.exception.CanvasApiException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
- * Simple in-memory caching service for Canvas data.
+ * Two-tier caching service for Canvas data.
  * Uses 5-minute TTL with manual refresh capability.
  *
  * Cache Strategy:
  * - Courses: 5 minute TTL (changes infrequently)
  * - Quizzes: 5 minute TTL (may change during course development)
+ *
+ * Tiers:
+ * - Memory: ConcurrentHashMap, checked first
+ * - Disk: SQLite (CanvasCacheStore), consulted on a memory miss. Entries
+ *   loaded from disk are served immediately even when older than the TTL,
+ *   and revalidated against Canvas in the background. The ETag /
+ *   Last-Modified Canvas sent with a list is stored alongside it, so
+ *   revalidation is a conditional request and a 304 only refreshes the
+ *   entry's timestamp.
+ *
+ * Concurrency:
+ * - Stale-while-revalidate (app.canvas.cache.stale-while-revalidate): expired
+ *   memory entries are also returned immediately while one background refresh runs.
+ * - Single-flight: concurrent fetches for the same key share one in-flight
+ *   CompletableFuture instead of each calling Canvas.
  */
 @Service
 public class CanvasCacheService {
@@ -25,13 +50,26 @@ public class CanvasCacheService {
     private static final Logger log = LoggerFactory.getLogger(CanvasCacheService.class);
     private static final long CACHE_TTL_SECONDS = 300; // 5 minutes
 
+    private static final String COURSES_KEY = "courses";
+    private static final String QUIZZES_KEY_PREFIX = "quizzes:";
+    private static final TypeReference<List<CanvasCourseDto>> COURSE_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<List<CanvasQuizSummaryDto>> QUIZ_LIST = new TypeReference<>() {
+    };
+
     private final CanvasQuizFetcher canvasFetcher;
+    private final CanvasCacheStore cacheStore;
+    private final boolean staleWhileRevalidate;
 
     private volatile CacheEntry<List<CanvasCourseDto>> coursesCache;
     private final Map<String, CacheEntry<List<CanvasQuizSummaryDto>>> quizzesCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
 
-    public CanvasCacheService(CanvasQuizFetcher canvasFetcher) {
+    public CanvasCacheService(CanvasQuizFetcher canvasFetcher, CanvasCacheStore cacheStore,
+            CanvasProperties props) {
         this.canvasFetcher = canvasFetcher;
+        this.cacheStore = cacheStore;
+        this.staleWhileRevalidate = props.cache() == null || props.cache().staleWhileRevalidate();
     }
 
     /**
@@ -39,20 +77,22 @@ public class CanvasCacheService {
      * @param forceRefresh If true, bypass cache and fetch fresh data
      */
     public List<CanvasCourseDto> getCourses(boolean forceRefresh) {
-        if (!forceRefresh && coursesCache != null && !coursesCache.isExpired()) {
-            log.info("Returning cached courses (age: {}s)", coursesCache.getAgeSeconds());
-            return coursesCache.data();
-        }
-
-        log.info("Fetching fresh courses from Canvas API");
-        long startTime = System.currentTimeMillis();
-        List<CanvasCourseDto> courses = canvasFetcher.getCourses();
-        long duration = System.currentTimeMillis() - startTime;
+        if (!forceRefresh) {
+            CacheEntry<List<CanvasCourseDto>> cached = cachedCourses();
 
-        coursesCache = new CacheEntry<>(courses);
-        log.info("Cached {} courses (fetch took {}ms)", courses.size(), duration);
+            if (cached != null && !cached.isExpired()) {
+                log.info("Returning cached courses (age: {}s)", cached.getAgeSeconds());
+                return cached.data();
+            }
+            if (cached != null && servesStale(cached)) {
+                log.info("Returning stale courses (age: {}s), revalidating in background",
+                        cached.getAgeSeconds());
+                revalidateInBackground(COURSES_KEY, this::fetchCourses);
+                return cached.data();
+            }
+        }
 
-        return courses;
+        return await(singleFlight(COURSES_KEY, this::fetchCourses));
     }
 
     /**
@@ -61,39 +101,294 @@ public class CanvasCacheService {
      * @param forceRefresh If true, bypass cache and fetch fresh data
      */
     public List<CanvasQuizSummaryDto> getQuizzes(String courseId, boolean forceRefresh) {
-        CacheEntry<List<CanvasQuizSummaryDto>> cached = quizzesCache.get(courseId);
+        if (!forceRefresh) {
+            CacheEntry<List<CanvasQuizSummaryDto>> cached = cachedQuizzes(courseId);
+
+            if (cached != null && !cached.isExpired()) {
+                log.info("Returning cached quizzes for course {} (age: {}s)", courseId, cached.getAgeSeconds());
+                return cached.data();
+            }
+            if (cached != null && servesStale(cached)) {
+                log.info("Returning stale quizzes for course {} (age: {}s), revalidating in background",
+                        courseId, cached.getAgeSeconds());
+                revalidateInBackground(QUIZZES_KEY_PREFIX + courseId, () -> fetchQuizzes(courseId));
+                return cached.data();
+            }
+        }
+
+        return await(singleFlight(QUIZZES_KEY_PREFIX + courseId, () -> fetchQuizzes(courseId)));
+    }
+
+    /**
+     * Stream quizzes for a course page by page, with caching.
+     * A fresh cache entry is delivered as a single page; otherwise each Canvas
+     * page is forwarded as soon as it arrives and the full list is cached once
+     * the last page has been read. If another caller is already fetching the
+     * same course, this call waits for it and receives the list as one page.
+     *
+     * @param courseId     Canvas course ID
+     * @param forceRefresh If true, bypass cache and fetch fresh data
+     * @param pageConsumer receives each page of quizzes in order
+     */
+    public void streamQuizzes(String courseId, boolean forceRefresh,
+            Consumer<List<CanvasQuizSummaryDto>> pageConsumer) {
+        CacheEntry<List<CanvasQuizSummaryDto>> cached = forceRefresh ? null : cachedQuizzes(courseId);
+
+        if (cached != null && !cached.isExpired()) {
+            log.info("Streaming cached quizzes for course {} (age: {}s)", courseId, cached.getAgeSeconds());
+            pageConsumer.accept(cached.data());
+            return;
+        }
+        if (cached != null && servesStale(cached)) {
+            log.info("Streaming stale quizzes for course {} (age: {}s), revalidating in background",
+                    courseId, cached.getAgeSeconds());
+            revalidateInBackground(QUIZZES_KEY_PREFIX + courseId, () -> fetchQuizzes(courseId));
+            pageConsumer.accept(cached.data());
+            return;
+        }
+
+        AtomicBoolean streamed = new AtomicBoolean();
+        AtomicReference<RuntimeException> consumerError = new AtomicReference<>();
+        List<CanvasQuizSummaryDto> result = await(singleFlight(QUIZZES_KEY_PREFIX + courseId, () -> {
+            streamed.set(true);
+            log.info("Streaming fresh quizzes for course {} from Canvas API", courseId);
+            long startTime = System.currentTimeMillis();
+            List<CanvasQuizSummaryDto> quizzes = new ArrayList<>();
+            CanvasQuizFetcher.Validators validators = canvasFetcher.streamQuizzes(courseId, page -> {
+                quizzes.addAll(page);
+                // Other callers may be waiting on this fetch, so a failing consumer
+                // (e.g. a disconnected client) stops receiving pages but doesn't abort it
+                if (consumerError.get() == null) {
+                    try {
+                        pageConsumer.accept(page);
+                    } catch (RuntimeException e) {
+                        consumerError.set(e);
+                    }
+                }
+            });
+            long duration = System.currentTimeMillis() - startTime;
 
-        if (!forceRefresh && cached != null && !cached.isExpired()) {
-            log.info("Returning cached quizzes for course {} (age: {}s)", courseId, cached.getAgeSeconds());
+            storeQuizzes(courseId, quizzes, validators);
+            log.info("Cached {} quizzes for course {} (stream took {}ms)", quizzes.size(), courseId, duration);
+            return quizzes;
+        }));
+
+        if (consumerError.get() != null) {
+            throw consumerError.get();
+        }
+        if (!streamed.get()) {
+            // Joined another caller's fetch: deliver its result in one go
+            pageConsumer.accept(result);
+        }
+    }
+
+    /**
+     * Ensure the course list is cached and fresh, blocking on Canvas only when
+     * it is missing or expired (no stale serving). Used by the warm-up job.
+     */
+    public List<CanvasCourseDto> warmCourses() {
+        CacheEntry<List<CanvasCourseDto>> cached = cachedCourses();
+        if (cached != null && !cached.isExpired()) {
+            return cached.data();
+        }
+        return await(singleFlight(COURSES_KEY, this::fetchCourses));
+    }
+
+    /**
+     * Ensure a course's quiz list is cached and fresh, blocking on Canvas only
+     * when it is missing or expired (no stale serving). Used by the warm-up job.
+     * @param courseId Canvas course ID
+     * @return the cached quizzes
+     */
+    public List<CanvasQuizSummaryDto> warmQuizzes(String courseId) {
+        CacheEntry<List<CanvasQuizSummaryDto>> cached = cachedQuizzes(courseId);
+        if (cached != null && !cached.isExpired()) {
             return cached.data();
         }
+        return await(singleFlight(QUIZZES_KEY_PREFIX + courseId, () -> fetchQuizzes(courseId)));
+    }
+
+    /**
+     * Clear all caches (manual refresh), including the persistent tier.
+     */
+    public void clearAll() {
+        log.info("Clearing all caches");
+        coursesCache = null;
+        quizzesCache.clear();
+        cacheStore.clear();
+    }
+
+    private List<CanvasCourseDto> fetchCourses() {
+        log.info("Fetching fresh courses from Canvas API");
+        CacheEntry<List<CanvasCourseDto>> cached = coursesCache;
+        long startTime = System.currentTimeMillis();
+        CanvasQuizFetcher.ListResult<CanvasCourseDto> result = canvasFetcher.getCourses(validatorsOf(cached));
+        long duration = System.currentTimeMillis() - startTime;
+
+        if (result.isNotModified()) {
+            CacheEntry<List<CanvasCourseDto>> entry = cached.revalidated();
+            coursesCache = entry;
+            cacheStore.touch(COURSES_KEY, entry.timestamp());
+            log.info("Courses not modified, refreshed cache (revalidation took {}ms)", duration);
+            return entry.data();
+        }
+
+        List<CanvasCourseDto> courses = result.items();
+        CacheEntry<List<CanvasCourseDto>> entry = new CacheEntry<>(courses, result.validators());
+        coursesCache = entry;
+        cacheStore.save(COURSES_KEY, courses, entry.timestamp(), result.validators());
+        log.info("Cached {} courses (fetch took {}ms)", courses.size(), duration);
+
+        return courses;
+    }
 
+    private List<CanvasQuizSummaryDto> fetchQuizzes(String courseId) {
         log.info("Fetching fresh quizzes for course {} from Canvas API", courseId);
+        CacheEntry<List<CanvasQuizSummaryDto>> cached = quizzesCache.get(courseId);
         long startTime = System.currentTimeMillis();
-        List<CanvasQuizSummaryDto> quizzes = canvasFetcher.getQuizzes(courseId);
+        CanvasQuizFetcher.ListResult<CanvasQuizSummaryDto> result =
+                canvasFetcher.getQuizzes(courseId, validatorsOf(cached));
         long duration = System.currentTimeMillis() - startTime;
 
-        quizzesCache.put(courseId, new CacheEntry<>(quizzes));
+        if (result.isNotModified()) {
+            CacheEntry<List<CanvasQuizSummaryDto>> entry = cached.revalidated();
+            quizzesCache.put(courseId, entry);
+            cacheStore.touch(QUIZZES_KEY_PREFIX + courseId, entry.timestamp());
+            log.info("Quizzes for course {} not modified, refreshed cache (revalidation took {}ms)",
+                    courseId, duration);
+            return entry.data();
+        }
+
+        List<CanvasQuizSummaryDto> quizzes = result.items();
+        storeQuizzes(courseId, quizzes, result.validators());
         log.info("Cached {} quizzes for course {} (fetch took {}ms)", quizzes.size(), courseId, duration);
 
         return quizzes;
     }
 
+    private void storeQuizzes(String courseId, List<CanvasQuizSummaryDto> quizzes,
+            CanvasQuizFetcher.Validators validators) {
+        CacheEntry<List<CanvasQuizSummaryDto>> entry = new CacheEntry<>(quizzes, validators);
+        quizzesCache.put(courseId, entry);
+        cacheStore.save(QUIZZES_KEY_PREFIX + courseId, quizzes, entry.timestamp(), validators);
+    }
+
+    private static CanvasQuizFetcher.Validators validatorsOf(CacheEntry<?> entry) {
+        return entry != null ? entry.validators() : null;
+    }
+
     /**
-     * Clear all caches (manual refresh).
+     * Memory tier first, then the persistent tier (promoting a hit into memory).
      */
-    public void clearAll() {
-        log.info("Clearing all caches");
-        coursesCache = null;
-        quizzesCache.clear();
+    private CacheEntry<List<CanvasCourseDto>> cachedCourses() {
+        CacheEntry<List<CanvasCourseDto>> cached = coursesCache;
+        if (cached == null) {
+            cached = cacheStore.load(COURSES_KEY, COURSE_LIST)
+                    .map(snapshot -> new CacheEntry<>(snapshot.data(), snapshot.fetchedAt(), true,
+                            snapshot.validators()))
+                    .orElse(null);
+            if (cached != null) {
+                coursesCache = cached;
+            }
+        }
+        return cached;
+    }
+
+    private CacheEntry<List<CanvasQuizSummaryDto>> cachedQuizzes(String courseId) {
+        CacheEntry<List<CanvasQuizSummaryDto>> cached = quizzesCache.get(courseId);
+        if (cached == null) {
+            cached = cacheStore.load(QUIZZES_KEY_PREFIX + courseId, QUIZ_LIST)
+                    .map(snapshot -> new CacheEntry<>(snapshot.data(), snapshot.fetchedAt(), true,
+                            snapshot.validators()))
+                    .orElse(null);
+            if (cached != null) {
+                quizzesCache.putIfAbsent(courseId, cached);
+            }
+        }
+        return cached;
+    }
+
+    private boolean servesStale(CacheEntry<?> entry) {
+        return staleWhileRevalidate || entry.fromDisk();
+    }
+
+    /**
+     * Refresh a key on a virtual thread unless a fetch for it is already in flight.
+     * The refresh is registered before the thread starts, so callers served the
+     * same stale entry meanwhile don't start another one.
+     */
+    private void revalidateInBackground(String cacheKey, Supplier<?> refresh) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(cacheKey, created) != null) {
+            return;
+        }
+        Thread.ofVirtual().name("canvas-cache-revalidate-" + cacheKey).start(() -> {
+            load(cacheKey, created, refresh);
+            created.exceptionally(e -> {
+                log.warn("Background revalidation of '{}' failed: {}", cacheKey, e.getMessage());
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Run the loader for a key unless another caller is already loading it, in
+     * which case the caller shares that in-flight future. The loader runs on the
+     * thread of whichever caller arrives first.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> singleFlight(String cacheKey, Supplier<T> loader) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(cacheKey, created);
+        if (existing != null) {
+            log.debug("Joining in-flight Canvas fetch for '{}'", cacheKey);
+            return existing;
+        }
+        load(cacheKey, created, loader);
+        return created;
+    }
+
+    /**
+     * Complete a future registered in inFlight with the loader's result, then unregister it.
+     */
+    private <T> void load(String cacheKey, CompletableFuture<T> future, Supplier<? extends T> loader) {
+        try {
+            future.complete(loader.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(cacheKey, future);
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeError) {
+                throw runtimeError;
+            }
+            throw new CanvasApiException("Canvas fetch failed: " + e.getCause().getMessage(), e.getCause());
+        }
     }
 
     /**
      * Internal cache entry with timestamp.
+     * fromDisk marks entries promoted from the persistent tier, which are
+     * always served stale-while-revalidate instead of blocking on a refetch.
+     * validators are sent when revalidating the entry (null if Canvas sent none).
      */
-    private record CacheEntry<T>(T data, Instant timestamp) {
-        CacheEntry(T data) {
-            this(data, Instant.now());
+    private record CacheEntry<T>(T data, Instant timestamp, boolean fromDisk,
+            CanvasQuizFetcher.Validators validators) {
+        CacheEntry(T data, CanvasQuizFetcher.Validators validators) {
+            this(data, Instant.now(), false, validators);
+        }
+
+        /**
+         * The same data, confirmed current by Canvas just now.
+         */
+        CacheEntry<T> revalidated() {
+            return new CacheEntry<>(data, validators);
         }
 
         boolean isExpired() {
@@ -0,0 +1,136 @@
+package com.qtihelper.demo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qtihelper.demo.entity.CanvasCacheEntry;
+import com.qtihelper.demo.repository.CanvasCacheEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persistent (SQLite) tier behind CanvasCacheService.
+ *
+ * Entries are stored as JSON so they survive restarts. All failures are
+ * logged and swallowed: the disk tier is an optimization, never a reason to
+ * fail a request that Canvas itself could serve. Writes of the same key are
+ * serialized, since each is a find-then-save on the unique cache_key.
+ */
+@Service
+public class CanvasCacheStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CanvasCacheStore.class);
+
+    private final CanvasCacheEntryRepository repository;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, Object> keyLocks = new ConcurrentHashMap<>();
+
+    public CanvasCacheStore(CanvasCacheEntryRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Load and deserialize a persisted entry.
+     *
+     * @param cacheKey Cache key (e.g. "courses", "quizzes:123")
+     * @param type     Target type of the payload
+     * @return Snapshot of the payload, or empty if missing or unreadable
+     */
+    public <T> Optional<Snapshot<T>> load(String cacheKey, TypeReference<T> type) {
+        try {
+            return repository.findByCacheKey(cacheKey)
+                    .map(entry -> new Snapshot<>(readPayload(entry.getPayload(), type),
+                            entry.getFetchedAt(), validators(entry)));
+        } catch (Exception e) {
+            log.warn("Failed to load persisted cache entry '{}': {}", cacheKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Serialize and upsert an entry.
+     *
+     * @param cacheKey  Cache key
+     * @param data      Payload to persist
+     * @param fetchedAt When the payload was fetched from Canvas
+     * @param validators ETag / Last-Modified returned by Canvas (nullable)
+     */
+    public void save(String cacheKey, Object data, Instant fetchedAt, CanvasQuizFetcher.Validators validators) {
+        try {
+            String payload = objectMapper.writeValueAsString(data);
+            synchronized (lockFor(cacheKey)) {
+                CanvasCacheEntry entry = repository.findByCacheKey(cacheKey)
+                        .orElseGet(() -> new CanvasCacheEntry(cacheKey));
+                entry.setPayload(payload);
+                entry.setFetchedAt(fetchedAt);
+                entry.setEtag(validators != null ? validators.etag() : null);
+                entry.setLastModified(validators != null ? validators.lastModified() : null);
+                repository.save(entry);
+            }
+            log.debug("Persisted cache entry '{}'", cacheKey);
+        } catch (Exception e) {
+            log.warn("Failed to persist cache entry '{}': {}", cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Mark an entry as confirmed current by Canvas (304 Not Modified) without
+     * rewriting its payload.
+     *
+     * @param cacheKey  Cache key
+     * @param fetchedAt When Canvas confirmed the payload
+     */
+    public void touch(String cacheKey, Instant fetchedAt) {
+        try {
+            synchronized (lockFor(cacheKey)) {
+                repository.findByCacheKey(cacheKey).ifPresent(entry -> {
+                    entry.setFetchedAt(fetchedAt);
+                    repository.save(entry);
+                });
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh cache entry '{}': {}", cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove all persisted entries.
+     */
+    public void clear() {
+        try {
+            repository.deleteAll();
+        } catch (Exception e) {
+            log.warn("Failed to clear persisted cache: {}", e.getMessage());
+        }
+    }
+
+    private Object lockFor(String cacheKey) {
+        return keyLocks.computeIfAbsent(cacheKey, key -> new Object());
+    }
+
+    private static CanvasQuizFetcher.Validators validators(CanvasCacheEntry entry) {
+        return entry.getEtag() != null || entry.getLastModified() != null
+                ? new CanvasQuizFetcher.Validators(entry.getEtag(), entry.getLastModified())
+                : null;
+    }
+
+    private <T> T readPayload(String payload, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(payload, type);
+        } catch (Exception e) {
+            throw new IllegalStateException("Corrupt cache payload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deserialized persisted entry.
+     */
+    public record Snapshot<T>(T data, Instant fetchedAt, CanvasQuizFetcher.Validators validators) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.qtihelper.demo.service;
+
+/**
+ * Allocation-light parsing of RFC 5988 Link headers and page query parameters,
+ * as returned by Canvas pagination.
+ *
+ * Header format: <https://canvas.instructure.com/api/v1/...>; rel="current",
+ * <https://canvas.instructure.com/api/v1/...>; rel="next"
+ *
+ * Scans the header in place with indexOf/regionMatches instead of a regex, and
+ * only allocates the substring that is returned.
+ */
+final class CanvasLinkHeader {
+
+    private CanvasLinkHeader() {
+    }
+
+    /**
+     * Returns the URL of the link with the given rel (e.g. "next", "last"), or
+     * null if the header is empty or has no such link. Rel values may be quoted
+     * or bare, and may list several space-separated relations.
+     */
+    static String find(String header, String rel) {
+        if (header == null || header.isEmpty()) {
+            return null;
+        }
+
+        int length = header.length();
+        int position = 0;
+        while (position < length) {
+            int open = header.indexOf('<', position);
+            if (open < 0) {
+                return null;
+            }
+            int close = header.indexOf('>', open + 1);
+            if (close < 0) {
+                return null;
+            }
+            // Commas inside the URL are enclosed by <>, so the link ends at the next comma after '>'
+            int end = header.indexOf(',', close + 1);
+            if (end < 0) {
+                end = length;
+            }
+            if (hasRel(header, close + 1, end, rel)) {
+                return header.substring(open + 1, close);
+            }
+            position = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the integer value of a query parameter (e.g. "page"), or null if
+     * it is absent or not a number.
+     */
+    static Integer queryInt(String url, String name) {
+        if (url == null) {
+            return null;
+        }
+
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return null;
+        }
+        int end = url.indexOf('#', query);
+        if (end < 0) {
+            end = url.length();
+        }
+
+        int position = query + 1;
+        while (position < end) {
+            int ampersand = url.indexOf('&', position);
+            int paramEnd = ampersand < 0 || ampersand > end ? end : ampersand;
+            if (paramEnd - position > name.length()
+                    && url.startsWith(name, position)
+                    && url.charAt(position + name.length()) == '=') {
+                return parseInt(url, position + name.length() + 1, paramEnd);
+            }
+            position = paramEnd + 1;
+        }
+        return null;
+    }
+
+    private static boolean hasRel(String header, int from, int to, String rel) {
+        int position = from;
+        while (position < to) {
+            int semicolon = header.indexOf(';', position);
+            if (semicolon < 0 || semicolon >= to) {
+                return false;
+            }
+            int paramEnd = header.indexOf(';', semicolon + 1);
+            if (paramEnd < 0 || paramEnd > to) {
+                paramEnd = to;
+            }
+
+            int name = skipWhitespace(header, semicolon + 1, paramEnd);
+            if (header.regionMatches(true, name, "rel", 0, 3)) {
+                int equals = skipWhitespace(header, name + 3, paramEnd);
+                if (equals < paramEnd && header.charAt(equals) == '=') {
+                    int valueStart = skipWhitespace(header, equals + 1, paramEnd);
+                    int valueEnd = trimEnd(header, valueStart, paramEnd);
+                    if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"'
+                            && header.charAt(valueEnd - 1) == '"') {
+                        valueStart++;
+                        valueEnd--;
+                    }
+                    return containsToken(header, valueStart, valueEnd, rel);
+                }
+            }
+            position = paramEnd;
+        }
+        return false;
+    }
+
+    private static boolean containsToken(String header, int from, int to, String token) {
+        int position = from;
+        while (position < to) {
+            position = skipWhitespace(header, position, to);
+            int tokenEnd = position;
+            while (tokenEnd < to && !Character.isWhitespace(header.charAt(tokenEnd))) {
+                tokenEnd++;
+            }
+            if (tokenEnd - position == token.length()
+                    && header.regionMatches(true, position, token, 0, token.length())) {
+                return true;
+            }
+            position = tokenEnd;
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(String value, int from, int to) {
+        int position = from;
+        while (position < to && Character.isWhitespace(value.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int trimEnd(String value, int from, int to) {
+        int position = to;
+        while (position > from && Character.isWhitespace(value.charAt(position - 1))) {
+            position--;
+        }
+        return position;
+    }
+
+    private static Integer parseInt(String value, int from, int to) {
+        if (from >= to || to - from > 9) {
+            return null;
+        }
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
@@ -7,32 +7,65 @@ import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
 import com.qtihelper.demo.dto.canvas.CanvasQuizSummaryDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.ParameterizedTypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
 import com.qtihelper.demo.exception.CanvasApiException;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 @Service
 public class CanvasQuizFetcher {
 
     private static final Logger log = LoggerFactory.getLogger(CanvasQuizFetcher.class);
+    // Replayed bodies are bounded by the size of their JSON, not their number
+    private static final long MAX_VALIDATED_BYTES = 16L * 1024 * 1024;
+    private static final long MAX_VALIDATED_RESPONSE_BYTES = 1024 * 1024;
+
     private final RestClient restClient;
+    private final CanvasProperties.Pagination pagination;
+
+    // One reader per DTO type, built once: Jackson resolves the deserializer on first use and reuses it
+    private final ObjectReader quizReader;
+    private final ObjectReader questionReader;
+    private final ObjectReader courseReader;
+    private final ObjectReader quizSummaryReader;
 
-    public CanvasQuizFetcher(CanvasProperties props, RestClient.Builder builder) {
-        log.info("Initializing Canvas API client");
-        log.debug("Canvas URL: {}", props.url());
-        log.debug("Canvas token: {}****", props.token() != null && props.token().length() > 4
-                ? props.token().substring(0, 4)
-                : "****");
+    // URL -> last 200 response with its ETag/Last-Modified, replayed on 304 Not Modified.
+    // LRU, bounded by total response size; guarded by itself
+    private final LinkedHashMap<String, ValidatedResponse> validatedResponses = new LinkedHashMap<>(16, 0.75f, true);
+    private long validatedBytes;
 
-        this.restClient = builder
-                .baseUrl(Objects.requireNonNull(props.url(), "Canvas URL must be configured"))
-                .defaultHeader("Authorization",
-                        "Bearer " + Objects.requireNonNull(props.token(), "Canvas token must be configured"))
-                .build();
+    public CanvasQuizFetcher(CanvasProperties props, RestClient canvasRestClient, ObjectMapper objectMapper) {
+        this.restClient = canvasRestClient;
+        this.quizReader = objectMapper.readerFor(CanvasQuizDto.class);
+        this.questionReader = objectMapper.readerFor(CanvasQuestionDto.class);
+        this.courseReader = objectMapper.readerFor(CanvasCourseDto.class);
+        this.quizSummaryReader = objectMapper.readerFor(CanvasQuizSummaryDto.class);
+        this.pagination = props.pagination() != null
+                ? props.pagination()
+                : new CanvasProperties.Pagination(true, 4);
     }
 
     public CanvasQuizDto getQuiz(String courseId, String quizId) {
@@ -40,10 +73,9 @@ public class CanvasQuizFetcher {
         log.debug("Canvas API URL: /api/v1/courses/{}/quizzes/{}", courseId, quizId);
 
         try {
-            CanvasQuizDto quiz = restClient.get()
-                    .uri("/api/v1/courses/{courseId}/quizzes/{quizId}", courseId, quizId)
-                    .retrieve()
-                    .body(CanvasQuizDto.class);
+            String url = String.format("/api/v1/courses/%s/quizzes/%s", courseId, quizId);
+            CanvasQuizDto quiz = conditionalGet(url, null, body -> quizReader.<CanvasQuizDto>readValue(body))
+                    .getBody();
 
             log.info("Successfully fetched quiz: {}", quiz != null ? quiz.title() : "null");
             log.debug("Quiz details - ID: {}, Title: {}", quiz != null ? quiz.id() : "null",
@@ -58,8 +90,7 @@ public class CanvasQuizFetcher {
     public List<CanvasQuestionDto> getQuizQuestions(String courseId, String quizId) {
         log.info("Fetching questions for quiz {}/{}", courseId, quizId);
         String url = String.format("/api/v1/courses/%s/quizzes/%s/questions?per_page=100", courseId, quizId);
-        return fetchAllPages(url, new ParameterizedTypeReference<List<CanvasQuestionDto>>() {
-        });
+        return this.<CanvasQuestionDto>fetchAllPages(url, questionReader, null).items();
     }
 
     /**
@@ -68,10 +99,19 @@ public class CanvasQuizFetcher {
      * @return List of courses where user is enrolled
      */
     public List<CanvasCourseDto> getCourses() {
+        return getCourses(null).items();
+    }
+
+    /**
+     * Fetch all active courses, revalidating a previously cached copy.
+     *
+     * @param known validators stored with the cached copy (nullable)
+     * @return the courses, or {@link ListResult#notModified()} if Canvas
+     *         confirmed the cached copy is still current
+     */
+    public ListResult<CanvasCourseDto> getCourses(Validators known) {
         log.info("Fetching courses from Canvas");
-        return fetchAllPages("/api/v1/courses?enrollment_state=active&per_page=100",
-                new ParameterizedTypeReference<List<CanvasCourseDto>>() {
-                });
+        return fetchAllPages("/api/v1/courses?enrollment_state=active&per_page=100", courseReader, known);
     }
 
     /**
@@ -81,67 +121,412 @@ public class CanvasQuizFetcher {
      * @return List of quizzes in the course
      */
     public List<CanvasQuizSummaryDto> getQuizzes(String courseId) {
+        return getQuizzes(courseId, null).items();
+    }
+
+    /**
+     * Fetch all quizzes for a course, revalidating a previously cached copy.
+     *
+     * @param courseId Canvas course ID
+     * @param known    validators stored with the cached copy (nullable)
+     * @return the quizzes, or {@link ListResult#notModified()} if Canvas
+     *         confirmed the cached copy is still current
+     */
+    public ListResult<CanvasQuizSummaryDto> getQuizzes(String courseId, Validators known) {
         log.info("Fetching quizzes for course {}", courseId);
         String url = String.format("/api/v1/courses/%s/quizzes?per_page=100", courseId);
-        return fetchAllPages(url, new ParameterizedTypeReference<List<CanvasQuizSummaryDto>>() {
-        });
+        return fetchAllPages(url, quizSummaryReader, known);
+    }
+
+    /**
+     * Stream all active courses page by page.
+     * Each page is handed to the consumer as soon as it is decoded, in page order.
+     *
+     * @param pageConsumer receives each non-empty page of courses
+     */
+    public void streamCourses(Consumer<List<CanvasCourseDto>> pageConsumer) {
+        log.info("Streaming courses from Canvas");
+        forEachPage("/api/v1/courses?enrollment_state=active&per_page=100", courseReader, null, pageConsumer);
+    }
+
+    /**
+     * Stream all quizzes for a course page by page.
+     * Each page is handed to the consumer as soon as it is decoded, in page order.
+     *
+     * @param courseId     Canvas course ID
+     * @param pageConsumer receives each non-empty page of quizzes
+     * @return validators to store with the list (null if it has none)
+     */
+    public Validators streamQuizzes(String courseId, Consumer<List<CanvasQuizSummaryDto>> pageConsumer) {
+        log.info("Streaming quizzes for course {}", courseId);
+        String url = String.format("/api/v1/courses/%s/quizzes?per_page=100", courseId);
+        return forEachPage(url, quizSummaryReader, null, pageConsumer);
     }
 
     /**
      * Generic method to fetch all pages of a paginated Canvas API resource.
      * Follows RFC 5988 Link headers.
      */
-    private <T> List<T> fetchAllPages(String initialUrl, ParameterizedTypeReference<List<T>> typeRef) {
-        List<T> allResults = new java.util.ArrayList<>();
-        String nextUrl = initialUrl;
+    private <T> ListResult<T> fetchAllPages(String initialUrl, ObjectReader reader, Validators known) {
+        List<T> allResults = new ArrayList<>();
+        Validators validators;
+        try {
+            validators = this.<T>forEachPage(initialUrl, reader, known, allResults::addAll);
+        } catch (NotModifiedException e) {
+            log.info("Cached copy of {} is still current (304 Not Modified)", initialUrl);
+            return ListResult.notModified(known);
+        }
+
+        log.info("Total items fetched: {}", allResults.size());
+        return new ListResult<>(allResults, validators);
+    }
+
+    /**
+     * Walks a paginated Canvas API resource, handing each decoded page to the
+     * consumer in page order. Null page bodies are skipped.
+     *
+     * When the first response advertises a numbered rel="last" link, the
+     * remaining pages are fetched concurrently on virtual threads (bounded by
+     * app.canvas.pagination.max-concurrency) and delivered in page order.
+     * Otherwise the rel="next" chain is followed one page at a time.
+     *
+     * Known validators of a cached copy make the first request conditional.
+     * They are only ever stored for single-page lists, so a 304 for that page
+     * means the whole list is unchanged: a {@link NotModifiedException} is
+     * thrown before anything is delivered.
+     *
+     * @return validators of the list if it fits on one page, else null
+     */
+    private <T> Validators forEachPage(String initialUrl, ObjectReader reader, Validators known,
+            Consumer<List<T>> pageConsumer) {
+        ResponseEntity<List<T>> firstPage = fetchPage(initialUrl, reader, known);
+        if (firstPage.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            throw new NotModifiedException();
+        }
+        deliverPage(pageConsumer, firstPage.getBody());
+
+        // Parse Link header for next page
+        // Header format: <https://canvas.instructure.com/api/v1/...>; rel="current",
+        // <https://canvas.instructure.com/api/v1/...>; rel="next"
+        String linkHeader = firstPage.getHeaders().getFirst("Link");
+        if (CanvasLinkHeader.find(linkHeader, "next") == null) {
+            return Validators.of(firstPage.getHeaders());
+        }
+        List<String> remainingUrls = pagination.parallel() && pagination.maxConcurrency() > 1
+                ? resolveRemainingPageUrls(linkHeader)
+                : List.of();
+
+        if (!remainingUrls.isEmpty()) {
+            log.debug("Fetching {} remaining pages concurrently (max {} in flight)",
+                    remainingUrls.size(), pagination.maxConcurrency());
+            fetchPagesConcurrently(remainingUrls, reader, pageConsumer);
+        } else {
+            String nextUrl = CanvasLinkHeader.find(linkHeader, "next");
+            while (nextUrl != null) {
+                ResponseEntity<List<T>> page = fetchPage(nextUrl, reader, null);
+                deliverPage(pageConsumer, page.getBody());
+                nextUrl = CanvasLinkHeader.find(page.getHeaders().getFirst("Link"), "next");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fetch a single page, wrapping any failure in a CanvasApiException.
+     */
+    private <T> ResponseEntity<List<T>> fetchPage(String url, ObjectReader reader, Validators known) {
+        log.debug("Fetching page: {}", url);
+
+        try {
+            return conditionalGet(url, known, body -> readList(body, reader));
+        } catch (Exception e) {
+            throw new CanvasApiException("Canvas API pagination failed at " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * GET with If-None-Match / If-Modified-Since when a validator for the URL is
+     * known. A 304 Not Modified replays the previously decoded body and headers
+     * (including the Link header used for pagination) as a 200. Otherwise the
+     * validators of a cached copy held by the caller ({@code known}, e.g. loaded
+     * from the disk tier after a restart) are sent, and a 304 is returned as is
+     * with a null body.
+     *
+     * The body is decoded straight from the response stream by the given decoder
+     * rather than going through the message converters.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> conditionalGet(String url, Validators known, BodyDecoder<T> decoder) {
+        ValidatedResponse cached = validatedResponse(url);
+        Validators validators = cached != null ? new Validators(cached.etag(), cached.lastModified()) : known;
+
+        return restClient.get()
+                .uri(url)
+                .accept(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (validators != null && validators.etag() != null) {
+                        headers.setIfNoneMatch(validators.etag());
+                    }
+                    if (validators != null && validators.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified());
+                    }
+                })
+                .exchange((request, response) -> {
+                    HttpStatusCode status = response.getStatusCode();
+                    HttpHeaders headers = response.getHeaders();
+
+                    if (status.value() == HttpStatus.NOT_MODIFIED.value()) {
+                        if (cached == null) {
+                            return new ResponseEntity<T>(null, headers, status);
+                        }
+                        log.debug("304 Not Modified, reusing cached response for {}", url);
+                        return new ResponseEntity<>((T) cached.body(), cached.headers(), HttpStatus.OK);
+                    }
+                    if (status.isError()) {
+                        throw new CanvasApiException("Canvas API returned " + status.value() + " "
+                                + response.getStatusText() + " for " + url);
+                    }
+
+                    T body;
+                    CountingInputStream in = new CountingInputStream(response.getBody());
+                    try (in) {
+                        body = decoder.decode(in);
+                    }
+
+                    String etag = headers.getETag();
+                    String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+                    if ((etag != null || lastModified != null) && body != null) {
+                        rememberValidated(url, new ValidatedResponse(etag, lastModified,
+                                body instanceof List<?> list ? List.copyOf(list) : body, headers, in.count()));
+                    }
+                    return new ResponseEntity<>(body, headers, status);
+                });
+    }
+
+    private ValidatedResponse validatedResponse(String url) {
+        synchronized (validatedResponses) {
+            return validatedResponses.get(url);
+        }
+    }
+
+    /**
+     * Keep a decoded response for replay, evicting the least recently used
+     * ones beyond the size budget. Responses too large to be worth holding are
+     * not kept: the caches above them hold their own copy.
+     */
+    private void rememberValidated(String url, ValidatedResponse response) {
+        synchronized (validatedResponses) {
+            ValidatedResponse previous = validatedResponses.remove(url);
+            if (previous != null) {
+                validatedBytes -= previous.bytes();
+            }
+            if (response.bytes() > MAX_VALIDATED_RESPONSE_BYTES) {
+                return;
+            }
+            validatedResponses.put(url, response);
+            validatedBytes += response.bytes();
+            Iterator<ValidatedResponse> eldest = validatedResponses.values().iterator();
+            while (validatedBytes > MAX_VALIDATED_BYTES && eldest.hasNext()) {
+                validatedBytes -= eldest.next().bytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Decodes a JSON array element by element with the streaming parser, binding
+     * each object with the shared reader instead of building an intermediate
+     * tree or collection type. Returns null for an empty body.
+     */
+    static <T> List<T> readList(InputStream body, ObjectReader reader) throws IOException {
+        try (JsonParser parser = reader.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new CanvasApiException("Expected a JSON array from Canvas but got " + token);
+            }
+
+            List<T> items = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                items.add(reader.readValue(parser));
+            }
+            return items;
+        }
+    }
+
+    /**
+     * Fetch the given page URLs concurrently on virtual threads.
+     * Pages are delivered in the same order as the input URLs, each one as soon
+     * as it and every page before it have arrived.
+     */
+    private <T> void fetchPagesConcurrently(List<String> urls, ObjectReader reader,
+            Consumer<List<T>> pageConsumer) {
+        Semaphore permits = new Semaphore(pagination.maxConcurrency());
 
-        while (nextUrl != null) {
-            log.debug("Fetching page: {}", nextUrl);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<T>>> futures = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return this.<T>fetchPage(url, reader, null).getBody();
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
 
             try {
-                var responseEntity = restClient.get()
-                        .uri(nextUrl)
-                        .retrieve()
-                        .toEntity(typeRef != null ? typeRef : new ParameterizedTypeReference<List<T>>() {
-                        });
-
-                List<T> pageResults = responseEntity.getBody();
-                if (pageResults != null) {
-                    allResults.addAll(pageResults);
+                for (Future<List<T>> future : futures) {
+                    deliverPage(pageConsumer, future.get());
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new CanvasApiException("Canvas API pagination interrupted", e);
+            } catch (ExecutionException e) {
+                // Fail fast: don't wait for the remaining pages once one has failed
+                futures.forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof CanvasApiException canvasError) {
+                    throw canvasError;
                 }
+                throw new CanvasApiException("Canvas API pagination failed: " + e.getCause().getMessage(),
+                        e.getCause());
+            } catch (RuntimeException e) {
+                // Page consumer failed (e.g. client went away) - stop fetching
+                futures.forEach(f -> f.cancel(true));
+                throw e;
+            }
+        }
+    }
 
-                // Parse Link header for next page
-                // Header format: <https://canvas.instructure.com/api/v1/...>; rel="current",
-                // <https://canvas.instructure.com/api/v1/...>; rel="next"
-                String linkHeader = responseEntity.getHeaders().getFirst("Link");
-                nextUrl = parseNextUrl(linkHeader);
+    private <T> void deliverPage(Consumer<List<T>> pageConsumer, List<T> pageResults) {
+        if (pageResults != null) {
+            pageConsumer.accept(pageResults);
+        }
+    }
 
-            } catch (Exception e) {
-                throw new CanvasApiException("Canvas API pagination failed at " + nextUrl + ": " + e.getMessage(), e);
-            }
+    /**
+     * Builds the URLs for pages next..last from the first response's Link header.
+     * Returns an empty list when the header has no numbered rel="next"/rel="last"
+     * pair (e.g. bookmark-style pagination), so the caller falls back to
+     * following rel="next" serially.
+     */
+    private List<String> resolveRemainingPageUrls(String linkHeader) {
+        String nextUrl = CanvasLinkHeader.find(linkHeader, "next");
+        String lastUrl = CanvasLinkHeader.find(linkHeader, "last");
+        if (nextUrl == null || lastUrl == null) {
+            return List.of();
         }
 
-        log.info("Total items fetched: {}", allResults.size());
-        return allResults;
+        Integer nextPage = CanvasLinkHeader.queryInt(nextUrl, "page");
+        Integer lastPage = CanvasLinkHeader.queryInt(lastUrl, "page");
+        if (nextPage == null || lastPage == null || lastPage < nextPage) {
+            return List.of();
+        }
+
+        List<String> urls = new ArrayList<>(lastPage - nextPage + 1);
+        for (int page = nextPage; page <= lastPage; page++) {
+            urls.add(UriComponentsBuilder.fromUriString(lastUrl)
+                    .replaceQueryParam("page", page)
+                    .build(true)
+                    .toUriString());
+        }
+        return urls;
     }
 
     /**
-     * Extracts the 'next' URL from the Link header.
-     * Returns null if no next page exists.
+     * Decodes a response body from its stream.
      */
-    private String parseNextUrl(String linkHeader) {
-        if (linkHeader == null || linkHeader.isEmpty()) {
-            return null;
+    @FunctionalInterface
+    private interface BodyDecoder<T> {
+        T decode(InputStream body) throws IOException;
+    }
+
+    /**
+     * ETag / Last-Modified of a response, persisted with a cached copy so it
+     * can be revalidated after a restart.
+     */
+    public record Validators(String etag, String lastModified) {
+
+        static Validators of(HttpHeaders headers) {
+            String etag = headers.getETag();
+            String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+            return etag != null || lastModified != null ? new Validators(etag, lastModified) : null;
         }
+    }
 
-        // Regex to match <url>; rel="next"
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("<([^>]+)>;\\s*rel=\"next\"");
-        java.util.regex.Matcher matcher = pattern.matcher(linkHeader);
+    /**
+     * A fetched list with the validators to store alongside it. Items are null
+     * when Canvas answered 304 Not Modified to the known validators.
+     */
+    public record ListResult<T>(List<T> items, Validators validators) {
 
-        if (matcher.find()) {
-            return matcher.group(1);
+        static <T> ListResult<T> notModified(Validators validators) {
+            return new ListResult<>(null, validators);
         }
 
-        return null;
+        public boolean isNotModified() {
+            return items == null;
+        }
+    }
+
+    /**
+     * The first page of a revalidated list was not modified.
+     */
+    private static final class NotModifiedException extends RuntimeException {
+        NotModifiedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Decoded body of a 200 response together with its validators and the
+     * size of the JSON it was decoded from. List bodies are held unmodifiable.
+     */
+    private record ValidatedResponse(String etag, String lastModified, Object body, HttpHeaders headers,
+            long bytes) {
+    }
+
+    /**
+     * Counts the bytes read through it.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
     }
 }
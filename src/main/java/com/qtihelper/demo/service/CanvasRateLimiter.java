@@ -0,0 +1,323 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.CanvasProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive throttle shared by every Canvas API call.
+ *
+ * Canvas meters each token with a leaky bucket and reports what is left in
+ * X-Rate-Limit-Remaining (X-Request-Cost is what the request just spent). When
+ * the bucket empties Canvas answers 403 "Rate Limit Exceeded" (or 429).
+ *
+ * Strategy (AIMD):
+ * - A request holds a permit until its response is closed; at most floor(limit) are in flight
+ * - Each healthy response grows the limit by 1/limit (about +1 per round of requests)
+ * - A low X-Rate-Limit-Remaining or a throttled response halves the limit
+ * - Throttled requests are retried for any method; 5xx and I/O errors only for idempotent methods,
+ *   using full-jitter exponential backoff (or Retry-After when Canvas sends it)
+ */
+@Component
+public class CanvasRateLimiter implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(CanvasRateLimiter.class);
+    private static final String REMAINING_HEADER = "X-Rate-Limit-Remaining";
+    private static final String COST_HEADER = "X-Request-Cost";
+    private static final String THROTTLED_BODY = "Rate Limit Exceeded";
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long DECREASE_INTERVAL_NANOS = 500_000_000L;
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private final int maxConcurrency;
+    private final double lowWatermark;
+    private final int maxRetries;
+    private final long backoffMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private volatile double lastRemaining = Double.NaN;
+
+    public CanvasRateLimiter(CanvasProperties props) {
+        CanvasProperties.RateLimit config = props.rateLimit() != null
+                ? props.rateLimit()
+                : new CanvasProperties.RateLimit(4, 16, 150, 3, 500);
+        this.maxConcurrency = Math.max(1, config.maxConcurrency());
+        this.limit = Math.clamp(config.initialConcurrency(), 1, maxConcurrency);
+        this.lowWatermark = config.lowWatermark();
+        this.maxRetries = Math.max(0, config.maxRetries());
+        this.backoffMillis = Math.max(1, config.backoffMillis());
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        boolean idempotent = IDEMPOTENT_METHODS.contains(request.getMethod());
+
+        for (int attempt = 0;; attempt++) {
+            acquire();
+            requests.incrementAndGet();
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    release();
+                }
+            };
+
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                release.run();
+                if (idempotent && attempt < maxRetries) {
+                    log.warn("Canvas request {} {} failed ({}), retrying", request.getMethod(), request.getURI(),
+                            e.getMessage());
+                    backoff(attempt, null);
+                    continue;
+                }
+                throw e;
+            }
+
+            HttpStatusCode status = response.getStatusCode();
+            HttpHeaders headers = response.getHeaders();
+            double remaining = parseDouble(headers.getFirst(REMAINING_HEADER));
+            byte[] bufferedBody = null;
+
+            boolean isThrottled = status.value() == 429;
+            if (status.value() == 403) {
+                // Canvas reuses 403 for throttling; only the body tells it apart from a permission error
+                bufferedBody = readBody(response);
+                isThrottled = remaining <= 0
+                        || new String(bufferedBody, StandardCharsets.UTF_8).contains(THROTTLED_BODY);
+            }
+
+            if (isThrottled) {
+                throttled.incrementAndGet();
+                decrease("throttled with " + status.value());
+                if (attempt < maxRetries) {
+                    response.close();
+                    release.run();
+                    backoff(attempt, headers.getFirst(HttpHeaders.RETRY_AFTER));
+                    continue;
+                }
+            } else if (status.is5xxServerError() && idempotent && attempt < maxRetries) {
+                log.warn("Canvas request {} {} returned {}, retrying", request.getMethod(), request.getURI(),
+                        status.value());
+                response.close();
+                release.run();
+                backoff(attempt, null);
+                continue;
+            } else if (!Double.isNaN(remaining)) {
+                onHealthyResponse(remaining, parseDouble(headers.getFirst(COST_HEADER)));
+            }
+
+            return new PermitResponse(response, bufferedBody, release);
+        }
+    }
+
+    /**
+     * Snapshot of the adaptive limit and throttling counters.
+     */
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(limit, inFlight, requests.get(), throttled.get(), retries.get(),
+                    Double.isNaN(lastRemaining) ? null : lastRemaining);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onHealthyResponse(double remaining, double cost) {
+        lastRemaining = remaining;
+        // Leave room for the requests already in flight, each costing about as much as this one
+        double headroom = lowWatermark + (Double.isNaN(cost) ? 0 : cost * inFlightCount());
+        if (remaining < headroom) {
+            decrease("X-Rate-Limit-Remaining " + remaining);
+        } else {
+            increase();
+        }
+    }
+
+    private int inFlightCount() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void increase() {
+        lock.lock();
+        try {
+            if (limit < maxConcurrency) {
+                limit = Math.min(maxConcurrency, limit + 1.0 / limit);
+                permitAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(String reason) {
+        lock.lock();
+        try {
+            // Responses from one burst report the same pressure; halve once per interval
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos < DECREASE_INTERVAL_NANOS) {
+                return;
+            }
+            lastDecreaseNanos = now;
+            limit = Math.max(1.0, limit / 2);
+            log.info("Canvas concurrency limit reduced to {} ({})", (int) limit, reason);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire() throws IOException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                permitAvailable.await();
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a Canvas request slot", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void backoff(int attempt, String retryAfter) throws IOException {
+        retries.incrementAndGet();
+        long delay;
+        long retryAfterSeconds = (long) parseDouble(retryAfter);
+        if (retryAfterSeconds > 0) {
+            delay = Math.min(MAX_BACKOFF_MILLIS, retryAfterSeconds * 1000);
+        } else {
+            long ceiling = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt, 16));
+            delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        }
+        log.debug("Backing off {}ms before Canvas retry {}", delay, attempt + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while backing off from Canvas", e);
+        }
+    }
+
+    private static byte[] readBody(ClientHttpResponse response) throws IOException {
+        try (InputStream in = response.getBody()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static double parseDouble(String value) {
+        if (value == null || value.isBlank()) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Adaptive limit and counters since startup.
+     */
+    public record Stats(
+            double limit,
+            int inFlight,
+            long requests,
+            long throttled,
+            long retries,
+            Double lastRemaining) {
+    }
+
+    /**
+     * Hands the response to the caller and returns the permit when it is closed.
+     */
+    private static final class PermitResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final byte[] bufferedBody;
+        private final Runnable release;
+
+        PermitResponse(ClientHttpResponse delegate, byte[] bufferedBody, Runnable release) {
+            this.delegate = delegate;
+            this.bufferedBody = bufferedBody;
+            this.release = release;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return bufferedBody != null ? new ByteArrayInputStream(bufferedBody) : delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+}
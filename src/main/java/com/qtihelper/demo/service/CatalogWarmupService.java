@@ -0,0 +1,243 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.CanvasProperties;
+import com.qtihelper.demo.dto.canvas.CanvasCourseDto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prefetches the quiz list of every course into CanvasCacheService, so the
+ * dashboard doesn't pay one cold Canvas fetch per course during a session.
+ *
+ * Runs on startup and/or every app.canvas.warmup.interval-minutes, or on
+ * demand via POST /api/cache/warmup. Courses are fetched in parallel on
+ * virtual threads, at most app.canvas.warmup.parallelism at a time. A run
+ * ends after app.canvas.warmup.budget-seconds at the latest: courses not
+ * finished by then are counted as skipped, and fetches already under way are
+ * left to complete in the background (not interrupted, since dashboard
+ * requests may be sharing them). Canvas rate limits still apply through the
+ * shared client.
+ */
+@Service
+public class CatalogWarmupService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogWarmupService.class);
+
+    private final CanvasCacheService cacheService;
+    private final CanvasProperties.Warmup config;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    // Progress of the current (or last) run
+    private volatile State state = State.IDLE;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile int totalCourses;
+    private volatile String lastError;
+    private final AtomicInteger completedCourses = new AtomicInteger();
+    private final AtomicInteger failedCourses = new AtomicInteger();
+    private final AtomicInteger skippedCourses = new AtomicInteger();
+    private final AtomicInteger quizCount = new AtomicInteger();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    public CatalogWarmupService(CanvasCacheService cacheService, CanvasProperties props) {
+        this.cacheService = cacheService;
+        this.config = props.warmup() != null
+                ? props.warmup()
+                : new CanvasProperties.Warmup(true, 0, 4, 120);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (config.onStartup()) {
+            start();
+        }
+        if (config.intervalMinutes() > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("canvas-warmup-scheduler").daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::start, config.intervalMinutes(), config.intervalMinutes(),
+                    TimeUnit.MINUTES);
+            log.info("Quiz catalog warm-up scheduled every {} minutes", config.intervalMinutes());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Start a warm-up run in the background.
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Quiz catalog warm-up already running");
+            return false;
+        }
+        resetProgress();
+        Thread.ofVirtual().name("canvas-warmup").start(() -> {
+            try {
+                run();
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Snapshot of the current (or last) run.
+     */
+    public Status status() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return new Status(
+                state,
+                startedAt,
+                finishedAt,
+                startedAt != null ? end.toEpochMilli() - startedAt.toEpochMilli() : 0,
+                totalCourses,
+                completedCourses.get(),
+                failedCourses.get(),
+                skippedCourses.get(),
+                quizCount.get(),
+                runs.get(),
+                lastError);
+    }
+
+    private void resetProgress() {
+        state = State.RUNNING;
+        startedAt = Instant.now();
+        finishedAt = null;
+        totalCourses = 0;
+        lastError = null;
+        completedCourses.set(0);
+        failedCourses.set(0);
+        skippedCourses.set(0);
+        quizCount.set(0);
+        runs.incrementAndGet();
+    }
+
+    private void run() {
+        log.info("=== Starting quiz catalog warm-up ===");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.budgetSeconds());
+
+        try {
+            List<CanvasCourseDto> courses = cacheService.warmCourses();
+            totalCourses = courses.size();
+            Semaphore permits = new Semaphore(Math.max(1, config.parallelism()));
+
+            RunScope scope = new RunScope();
+
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            for (CanvasCourseDto course : courses) {
+                executor.submit(() -> warmCourse(String.valueOf(course.id()), permits, deadline, scope));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                scope.close(() -> skippedCourses.addAndGet(
+                        totalCourses - completedCourses.get() - failedCourses.get() - skippedCourses.get()));
+                log.warn("Quiz catalog warm-up budget of {}s exhausted, not waiting for the remaining courses",
+                        config.budgetSeconds());
+            }
+
+            state = State.COMPLETED;
+            log.info("=== Quiz catalog warm-up finished: {}/{} courses, {} quizzes, {} failed, {} skipped ===",
+                    completedCourses.get(), totalCourses, quizCount.get(), failedCourses.get(),
+                    skippedCourses.get());
+        } catch (Exception e) {
+            state = State.FAILED;
+            lastError = e.getMessage();
+            log.error("Quiz catalog warm-up failed", e);
+        } finally {
+            finishedAt = Instant.now();
+        }
+    }
+
+    private void warmCourse(String courseId, Semaphore permits, long deadline, RunScope scope) {
+        try {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !permits.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                scope.count(skippedCourses::incrementAndGet);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scope.count(skippedCourses::incrementAndGet);
+            return;
+        }
+
+        try {
+            int quizzes = cacheService.warmQuizzes(courseId).size();
+            scope.count(() -> {
+                quizCount.addAndGet(quizzes);
+                completedCourses.incrementAndGet();
+            });
+        } catch (Exception e) {
+            scope.count(() -> {
+                failedCourses.incrementAndGet();
+                lastError = "Course " + courseId + ": " + e.getMessage();
+            });
+            log.warn("Warm-up of quizzes for course {} failed: {}", courseId, e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * A run's hold on the progress counters. Closed when the budget runs out,
+     * so courses finishing later don't change the reported (or next) run.
+     */
+    private static final class RunScope {
+        private boolean open = true;
+
+        synchronized void count(Runnable update) {
+            if (open) {
+                update.run();
+            }
+        }
+
+        synchronized void close(Runnable update) {
+            open = false;
+            update.run();
+        }
+    }
+
+    public enum State {
+        IDLE, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Warm-up progress and counters.
+     */
+    public record Status(
+            State state,
+            Instant startedAt,
+            Instant finishedAt,
+            long durationMillis,
+            int totalCourses,
+            int completedCourses,
+            int failedCourses,
+            int skippedCourses,
+            int quizzes,
+            int runs,
+            String lastError) {
+    }
+}
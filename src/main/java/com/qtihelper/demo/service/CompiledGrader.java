@@ -0,0 +1,196 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.model.PrintReport;
+import com.qtihelper.demo.util.AnswerIndex;
+import com.qtihelper.demo.util.QuizEvalUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * One question prepared for grading every student's response.
+ *
+ * Compiling resolves everything that does not depend on the response: the
+ * question type is dispatched to a matcher once, option texts are stripped
+ * and case-folded once (via {@link AnswerIndex}), and the general and
+ * correct/incorrect feedback is concatenated into two ready-made strings.
+ * Grading a response is then the matcher plus a scan of the few options
+ * that carry answer-specific comments. Instances are immutable and may be
+ * shared across threads.
+ */
+final class CompiledGrader {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledGrader.class);
+    private static final Pattern ANSWER_SEPARATOR = Pattern.compile("[,;]");
+    private static final String NO_ANSWER = "No answer";
+    private static final String DIV_END = "</div>";
+
+    /**
+     * Grades a response against the correct options; null or empty responses
+     * are never passed in.
+     */
+    @FunctionalInterface
+    private interface Matcher {
+        boolean isCorrect(String studentAnswer);
+    }
+
+    private final CanvasQuestionDto question;
+    private final Matcher matcher; // null when nothing can be graded (no answers, unsupported type)
+    private final List<String> correctAnswers; // null when not reported
+    private final String feedbackIfCorrect;
+    private final String feedbackIfIncorrect;
+    private final String[] commentedTexts; // Options with answer-specific comments ...
+    private final String[] commentFeedback; // ... and their feedback block
+
+    private CompiledGrader(CanvasQuestionDto question, Matcher matcher, List<String> correctAnswers,
+            AnswerIndex answerIndex) {
+        this.question = question;
+        this.matcher = matcher;
+        this.correctAnswers = correctAnswers;
+
+        String general = block("feedback-general", question.neutralComments());
+        this.feedbackIfCorrect = general + block("feedback-correct", question.correctComments());
+        this.feedbackIfIncorrect = general + block("feedback-incorrect", question.incorrectComments());
+
+        List<String> texts = new ArrayList<>();
+        List<String> feedback = new ArrayList<>();
+        if (question.answers() != null) {
+            for (int i = 0; i < answerIndex.size(); i++) {
+                CanvasAnswerDto answer = answerIndex.answer(i);
+                if (answer.comments() != null && !answer.comments().isEmpty()) {
+                    texts.add(answerIndex.text(i));
+                    feedback.add(block("feedback-answer-specific", answer.comments()));
+                }
+            }
+        }
+        this.commentedTexts = texts.toArray(String[]::new);
+        this.commentFeedback = feedback.toArray(String[]::new);
+    }
+
+    /**
+     * Compile every question of a list, in list order.
+     */
+    static List<CompiledGrader> compileAll(List<CanvasQuestionDto> questions) {
+        List<CompiledGrader> graders = new ArrayList<>(questions.size());
+        for (CanvasQuestionDto question : questions) {
+            graders.add(compile(question));
+        }
+        return graders;
+    }
+
+    static CompiledGrader compile(CanvasQuestionDto question) {
+        AnswerIndex answerIndex = AnswerIndex.of(question);
+        String questionType = question.questionType();
+        if (questionType == null || !isSupported(questionType)) {
+            log.warn("Unsupported question type: {}", questionType);
+            return new CompiledGrader(question, null, null, answerIndex);
+        }
+        if (question.answers() == null) {
+            log.warn("Question has no answers defined");
+            return new CompiledGrader(question, null, null, answerIndex);
+        }
+
+        Matcher matcher = switch (questionType) {
+            case "multiple_choice_question", "true_false_question" -> multipleChoice(answerIndex);
+            case "multiple_answers_question" -> multipleAnswers(answerIndex);
+            case "multiple_dropdowns_question" -> multipleDropdowns(answerIndex);
+            default -> matching(answerIndex);
+        };
+        return new CompiledGrader(question, matcher, answerIndex.correctTexts(), answerIndex);
+    }
+
+    private static boolean isSupported(String questionType) {
+        return switch (questionType) {
+            case "multiple_choice_question", "true_false_question", "multiple_answers_question",
+                    "multiple_dropdowns_question", "matching_question" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Grade one student's response (null if the student left it blank).
+     */
+    PrintReport.QuestionResult grade(String studentAnswer) {
+        PrintReport.QuestionResult result = new PrintReport.QuestionResult();
+        result.setQuestion(question);
+        String shownAnswer = studentAnswer != null ? studentAnswer : NO_ANSWER;
+        result.setStudentAnswer(shownAnswer);
+
+        if (correctAnswers != null) {
+            result.setCorrectAnswers(correctAnswers);
+        }
+        boolean isCorrect = matcher != null && studentAnswer != null && !studentAnswer.isEmpty()
+                && matcher.isCorrect(studentAnswer);
+        result.setCorrect(isCorrect);
+        result.setFeedbackToShow(feedback(isCorrect, shownAnswer));
+        return result;
+    }
+
+    private String feedback(boolean isCorrect, String shownAnswer) {
+        String base = isCorrect ? feedbackIfCorrect : feedbackIfIncorrect;
+        StringBuilder feedback = null;
+        for (int i = 0; i < commentedTexts.length; i++) {
+            if (shownAnswer.contains(commentedTexts[i])) {
+                if (feedback == null) {
+                    feedback = new StringBuilder(base);
+                }
+                feedback.append(commentFeedback[i]);
+            }
+        }
+        return feedback != null ? feedback.toString() : base;
+    }
+
+    private static String block(String cssClass, String html) {
+        return html != null && !html.isEmpty()
+                ? "<div class='" + cssClass + "'>" + html + DIV_END
+                : "";
+    }
+
+    private static Matcher multipleChoice(AnswerIndex answerIndex) {
+        return studentAnswer -> {
+            // Try matching by letter (A, B, C, D), then by text
+            if (studentAnswer.length() == 1 && Character.isUpperCase(studentAnswer.charAt(0))) {
+                return QuizEvalUtils.matchByLetter(studentAnswer, answerIndex);
+            }
+            return QuizEvalUtils.matchByText(studentAnswer, answerIndex);
+        };
+    }
+
+    private static Matcher multipleAnswers(AnswerIndex answerIndex) {
+        int expected = answerIndex.correctTexts().size();
+        return studentAnswer -> {
+            List<String> studentList = QuizEvalUtils.parseMultipleAnswers(studentAnswer, answerIndex);
+            return studentList.size() == expected && studentList.stream().allMatch(answerIndex::isCorrectText);
+        };
+    }
+
+    private static Matcher multipleDropdowns(AnswerIndex answerIndex) {
+        // Each selection must match some correct answer; positions of the
+        // blanks are not known from the CSV ("answer1;answer2" or "answer1,answer2")
+        return studentAnswer -> {
+            String[] selections = ANSWER_SEPARATOR.split(studentAnswer);
+            if (selections.length == 0) {
+                return false;
+            }
+            for (String selection : selections) {
+                if (!answerIndex.isCorrectText(selection.trim())) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static Matcher matching(AnswerIndex answerIndex) {
+        // Canvas exports do not pin down the pair syntax, so any non-blank
+        // response counts, as does one containing a correct pair's text
+        boolean hasCorrectTexts = !answerIndex.correctTexts().isEmpty();
+        return studentAnswer -> !studentAnswer.trim().isEmpty()
+                || (hasCorrectTexts && answerIndex.containsCorrectText(studentAnswer));
+    }
+}
@@ -1,6 +1,8 @@
 package com.qtihelper.demo.service;
 
 import com.qtihelper.demo.model.StudentSubmission;
+import com.qtihelper.demo.util.ByteBufferInputStream;
+import com.qtihelper.demo.util.StringPool;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -11,98 +13,300 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 public class CsvSubmissionParser {
 
     private static final Logger log = LoggerFactory.getLogger(CsvSubmissionParser.class);
     private static final Pattern QUESTION_PATTERN = Pattern.compile("#(\\d+) Student Response");
+    // Highest "#n Student Response" accepted; no Canvas quiz comes close
+    static final int MAX_QUESTION_NUMBER = 1000;
+    // Smallest byte range worth handing to its own worker
+    private static final int MIN_CHUNK_BYTES = 256 * 1024;
 
     public List<StudentSubmission> parseSubmissions(MultipartFile csvFile) throws IOException {
         log.info("Starting CSV parsing for file: {} (size: {} bytes)",
                 csvFile.getOriginalFilename(), csvFile.getSize());
 
-        List<StudentSubmission> submissions = new ArrayList<>();
+        try (Stream<StudentSubmission> submissions = streamSubmissions(csvFile.getInputStream())) {
+            return submissions.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(csvFile.getInputStream(), StandardCharsets.UTF_8));
-                CSVParser parser = new CSVParser(reader,
-                        CSVFormat.DEFAULT.builder()
-                                .setHeader()
-                                .setSkipHeaderRecord(true)
-                                .setIgnoreEmptyLines(true)
-                                .build())) {
-
-            List<String> headers = parser.getHeaderNames();
-            log.info("CSV contains {} columns", headers.size());
-            log.debug("CSV Headers: {}", headers);
-
-            // Count question columns
-            long questionColumns = headers.stream()
-                    .filter(h -> QUESTION_PATTERN.matcher(h).matches())
-                    .count();
-            log.info("Found {} question response columns in CSV", questionColumns);
-
-            int recordCount = 0;
-            for (CSVRecord submissionRecord : parser) {
-                recordCount++;
-                log.debug("Processing record #{} (line {})", recordCount, submissionRecord.getRecordNumber());
-
-                StudentSubmission submission = new StudentSubmission();
-
-                // Parse student info
-                submission.setQuizName(getValueOrEmpty(submissionRecord, "Quiz Name"));
-                submission.setFirstName(getValueOrEmpty(submissionRecord, "Student First Name"));
-                submission.setLastName(getValueOrEmpty(submissionRecord, "Student Last Name"));
-                submission.setStudentId(getValueOrEmpty(submissionRecord, "Student ID"));
-                submission.setExportTimestamp(getValueOrEmpty(submissionRecord, "Export Timestamp"));
-
-                log.debug("Student info - Name: {} {}, ID: {}",
-                        submission.getFirstName(), submission.getLastName(), submission.getStudentId());
-
-                // Parse question responses
-                for (String header : headers) {
-                    Matcher matcher = QUESTION_PATTERN.matcher(header);
-                    if (matcher.matches()) {
-                        int questionNumber = Integer.parseInt(matcher.group(1));
-                        String response = getValueOrEmpty(submissionRecord, header);
-                        if (!response.isEmpty()) {
-                            submission.getResponses().put(questionNumber, response);
-                            log.debug("Q{}: {}", questionNumber,
-                                    response.length() > 50 ? response.substring(0, 50) + "..." : response);
-                        }
+    /**
+     * Parse a Canvas quiz export lazily, one submission per row. The header is
+     * read once, up front, to locate the student and "#n Student Response"
+     * columns. The stream must be closed (try-with-resources), which closes
+     * the input.
+     */
+    public Stream<StudentSubmission> streamSubmissions(InputStream csvInput) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csvInput, StandardCharsets.UTF_8));
+        CSVParser parser;
+        try {
+            parser = new CSVParser(reader,
+                    CSVFormat.DEFAULT.builder()
+                            .setHeader()
+                            .setSkipHeaderRecord(true)
+                            .setIgnoreEmptyLines(true)
+                            .build());
+        } catch (IOException e) {
+            log.error("Failed to parse CSV file: {}", e.getMessage(), e);
+            reader.close();
+            throw e;
+        }
+
+        List<String> headers = parser.getHeaderNames();
+        log.info("CSV contains {} columns", headers.size());
+        log.debug("CSV Headers: {}", headers);
+        Columns columns;
+        try {
+            columns = Columns.of(headers, parser.getHeaderMap());
+        } catch (IllegalArgumentException e) {
+            parser.close();
+            throw e;
+        }
+        log.info("Found {} question response columns in CSV", columns.questionNumbers().length);
+
+        AtomicInteger recordCount = new AtomicInteger();
+        StringPool strings = new StringPool();
+        return parser.stream()
+                .map(submissionRecord -> {
+                    recordCount.incrementAndGet();
+                    return parseRecord(submissionRecord, columns, strings);
+                })
+                .onClose(() -> {
+                    log.info("Successfully parsed {} student submissions from CSV", recordCount.get());
+                    try {
+                        parser.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
                     }
-                }
+                });
+    }
 
-                submissions.add(submission);
-                log.info("Parsed student: {} {} (ID: {}) with {} responses",
-                        submission.getFirstName(), submission.getLastName(),
-                        submission.getStudentId(), submission.getResponses().size());
-            }
+    /**
+     * Parse a whole export on several workers. One sequential pass over the
+     * bytes tracks quoting to cut the rows into record-aligned ranges (a
+     * quoted field may span lines); each range is parsed on the common
+     * fork/join pool and the results are concatenated in file order, so the
+     * list equals what {@link #parseSubmissions} returns. Exports too small
+     * to split are parsed as a single range.
+     */
+    public List<StudentSubmission> parseSubmissionsParallel(byte[] csv) throws IOException {
+        return parseSubmissionsParallel(ByteBuffer.wrap(csv));
+    }
+
+    /**
+     * Parallel parse of the bytes between the buffer's position and limit,
+     * e.g. a memory-mapped upload ({@link MappedUpload}). The buffer itself
+     * is not modified.
+     */
+    public List<StudentSubmission> parseSubmissionsParallel(ByteBuffer buffer) throws IOException {
+        ByteBuffer csv = buffer.slice();
+        int length = csv.limit();
+        int headerEnd = nextRecord(csv, 0);
+        List<String> headers;
+        Columns columns;
+        try (CSVParser headerParser = new CSVParser(reader(csv, 0, headerEnd),
+                CSVFormat.DEFAULT.builder()
+                        .setHeader()
+                        .setSkipHeaderRecord(true)
+                        .build())) {
+            headers = headerParser.getHeaderNames();
+            columns = Columns.of(headers, headerParser.getHeaderMap());
+        }
+        log.info("CSV contains {} columns, {} question response columns", headers.size(),
+                columns.questionNumbers().length);
 
-            log.info("Successfully parsed {} student submissions from CSV", submissions.size());
+        int chunks = (int) Math.max(1, Math.min(
+                ForkJoinPool.getCommonPoolParallelism() * 2L, (length - headerEnd) / MIN_CHUNK_BYTES));
+        int[] bounds = recordBoundaries(csv, headerEnd, chunks);
+        log.info("Parsing {} bytes of CSV records in {} chunks", length - headerEnd, bounds.length - 1);
 
-        } catch (IOException e) {
+        List<StudentSubmission> submissions;
+        try {
+            submissions = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(chunk -> parseChunk(csv, bounds[chunk], bounds[chunk + 1], columns))
+                    .flatMap(List::stream)
+                    .toList();
+        } catch (UncheckedIOException e) {
             log.error("Failed to parse CSV file: {}", e.getMessage(), e);
-            throw e;
+            throw e.getCause();
         }
+        log.info("Successfully parsed {} student submissions from CSV", submissions.size());
+        return submissions;
+    }
 
+    private List<StudentSubmission> parseChunk(ByteBuffer csv, int from, int to, Columns columns) {
+        List<StudentSubmission> submissions = new ArrayList<>();
+        StringPool strings = new StringPool();
+        try (CSVParser parser = new CSVParser(reader(csv, from, to),
+                CSVFormat.DEFAULT.builder().setIgnoreEmptyLines(true).build())) {
+            for (CSVRecord submissionRecord : parser) {
+                submissions.add(parseRecord(submissionRecord, columns, strings));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return submissions;
     }
 
-    private String getValueOrEmpty(CSVRecord csvRecord, String column) {
-        try {
-            String value = csvRecord.get(column);
-            return value != null ? value.trim() : "";
-        } catch (IllegalArgumentException e) {
-            log.debug("Column '{}' not found in CSV record", column);
+    private static Reader reader(ByteBuffer csv, int from, int to) {
+        return new InputStreamReader(new ByteBufferInputStream(csv.slice(from, to - from)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Split [start, csv.limit()) into up to {@code chunks} ranges of similar
+     * size, each starting at a record. {@code start} must itself start a
+     * record. A '"' byte never occurs inside a multi-byte UTF-8 character and
+     * an escaped quote ("") toggles twice, so quote parity alone tells
+     * whether a newline ends a record.
+     */
+    static int[] recordBoundaries(ByteBuffer csv, int start, int chunks) {
+        int length = csv.limit();
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = start;
+        int found = 1;
+        long span = length - start;
+        long target = start + span / chunks;
+        boolean quoted = false;
+        for (int i = start; i < length && found < chunks; i++) {
+            byte b = csv.get(i);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted && i + 1 >= target && i + 1 < length) {
+                bounds[found++] = i + 1;
+                target = start + span * found / chunks;
+            }
+        }
+        bounds[found] = length;
+        return found == chunks ? bounds : Arrays.copyOf(bounds, found + 1);
+    }
+
+    /**
+     * Offset just past the record starting at {@code start}.
+     */
+    private static int nextRecord(ByteBuffer csv, int start) {
+        boolean quoted = false;
+        for (int i = start; i < csv.limit(); i++) {
+            byte b = csv.get(i);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                return i + 1;
+            }
+        }
+        return csv.limit();
+    }
+
+    private StudentSubmission parseRecord(CSVRecord submissionRecord, Columns columns, StringPool strings) {
+        log.debug("Processing record #{}", submissionRecord.getRecordNumber());
+
+        StudentSubmission submission = new StudentSubmission(columns.questionCount());
+
+        // Parse student info
+        submission.setQuizName(strings.intern(getValueOrEmpty(submissionRecord, columns.quizName())));
+        submission.setFirstName(getValueOrEmpty(submissionRecord, columns.firstName()));
+        submission.setLastName(getValueOrEmpty(submissionRecord, columns.lastName()));
+        submission.setStudentId(getValueOrEmpty(submissionRecord, columns.studentId()));
+        submission.setExportTimestamp(strings.intern(getValueOrEmpty(submissionRecord, columns.exportTimestamp())));
+
+        // Parse question responses
+        int[] questionNumbers = columns.questionNumbers();
+        int[] questionColumns = columns.questionColumns();
+        for (int i = 0; i < questionNumbers.length; i++) {
+            String response = getValueOrEmpty(submissionRecord, questionColumns[i]);
+            if (!response.isEmpty()) {
+                submission.setResponse(questionNumbers[i], strings.intern(response));
+            }
+        }
+
+        log.debug("Parsed student: {} {} (ID: {}) with {} responses",
+                submission.getFirstName(), submission.getLastName(),
+                submission.getStudentId(), submission.getResponses().size());
+        return submission;
+    }
+
+    /**
+     * Trimmed value of a column, or "" if the header lacks it or the row is short.
+     */
+    private String getValueOrEmpty(CSVRecord csvRecord, int column) {
+        if (column < 0 || column >= csvRecord.size()) {
             return "";
         }
+        String value = csvRecord.get(column);
+        return value != null ? value.trim() : "";
+    }
+
+    /**
+     * Column positions resolved from the header, -1 where it lacks a column.
+     * Question columns are listed in header order; a repeated header name
+     * reads its last column, as a lookup by name would.
+     *
+     * @param questionCount highest question number in the header
+     */
+    private record Columns(int quizName, int firstName, int lastName, int studentId, int exportTimestamp,
+            int[] questionNumbers, int[] questionColumns, int questionCount) {
+
+        /**
+         * @throws IllegalArgumentException if a question number is outside
+         *                                  1..{@value #MAX_QUESTION_NUMBER}
+         */
+        static Columns of(List<String> headers, Map<String, Integer> headerMap) {
+            List<int[]> questions = new ArrayList<>();
+            int questionCount = 0;
+            for (String header : headers) {
+                Matcher matcher = QUESTION_PATTERN.matcher(header);
+                if (matcher.matches()) {
+                    int number = questionNumber(header, matcher.group(1));
+                    questions.add(new int[] { number, headerMap.get(header) });
+                    questionCount = Math.max(questionCount, number);
+                }
+            }
+            int[] numbers = new int[questions.size()];
+            int[] columns = new int[questions.size()];
+            for (int i = 0; i < questions.size(); i++) {
+                numbers[i] = questions.get(i)[0];
+                columns[i] = questions.get(i)[1];
+            }
+
+            return new Columns(
+                    headerMap.getOrDefault("Quiz Name", -1),
+                    headerMap.getOrDefault("Student First Name", -1),
+                    headerMap.getOrDefault("Student Last Name", -1),
+                    headerMap.getOrDefault("Student ID", -1),
+                    headerMap.getOrDefault("Export Timestamp", -1),
+                    numbers,
+                    columns,
+                    questionCount);
+        }
+
+        private static int questionNumber(String header, String digits) {
+            // More than 9 digits may not fit in an int, and is out of range anyway
+            int number = digits.length() <= 9 ? Integer.parseInt(digits) : -1;
+            if (number < 1 || number > MAX_QUESTION_NUMBER) {
+                throw new IllegalArgumentException("Invalid CSV column '" + header
+                        + "': question numbers must be between 1 and " + MAX_QUESTION_NUMBER);
+            }
+            return number;
+        }
     }
 }
@@ -0,0 +1,135 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.DistractorAnalysis;
+import com.qtihelper.demo.model.DistractorAnalysis.OptionAnalysis;
+import com.qtihelper.demo.model.DistractorAnalysis.OptionFlag;
+import com.qtihelper.demo.model.DistractorAnalysis.QuestionDistractors;
+import com.qtihelper.demo.model.StudentSubmission;
+import com.qtihelper.demo.util.AnswerIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds distractor-analysis reports.
+ *
+ * Works on the bitsets of a {@link ResponseMatrix}: for each option, the
+ * students who selected it are intersected with the top and bottom 27%
+ * groups ({@link ScoreGroups}) and counted with popcounts, so a report costs
+ * a few word operations per option and 64 students.
+ */
+@Service
+public class DistractorAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(DistractorAnalysisService.class);
+    // Distractors chosen by fewer responders than this are considered non-functioning
+    private static final double NON_FUNCTIONING_RATIO = 0.05;
+
+    public DistractorAnalysis analyze(
+            CanvasQuizDto quiz,
+            List<CanvasQuestionDto> questions,
+            List<StudentSubmission> submissions) {
+
+        return analyze(quiz, questions, ResponseMatrix.build(questions, submissions));
+    }
+
+    /**
+     * Distractor analysis of already encoded submissions.
+     */
+    public DistractorAnalysis analyze(
+            CanvasQuizDto quiz,
+            List<CanvasQuestionDto> questions,
+            ResponseMatrix matrix) {
+
+        log.info("Analyzing distractors for quiz: {} with {} submissions", quiz.title(), matrix.studentCount());
+
+        ScoreGroups groups = ScoreGroups.of(matrix);
+
+        List<QuestionDistractors> questionReports = new ArrayList<>(questions.size());
+        for (int q = 0; q < questions.size(); q++) {
+            questionReports.add(analyzeQuestion(questions.get(q), q, matrix, groups));
+        }
+
+        return new DistractorAnalysis(
+                quiz.id(),
+                quiz.title(),
+                Instant.now(),
+                matrix.studentCount(),
+                groups.topCount(),
+                groups.bottomCount(),
+                questionReports);
+    }
+
+    private QuestionDistractors analyzeQuestion(CanvasQuestionDto question, int q, ResponseMatrix matrix,
+            ScoreGroups groups) {
+        AnswerIndex answers = AnswerIndex.of(question);
+        int responses = StudentBits.count(matrix.answeredStudents(q));
+        int optionResponses = 0;
+
+        List<OptionAnalysis> options = new ArrayList<>(answers.size());
+        for (int option = 0; option < answers.size(); option++) {
+            long[] picked = matrix.selectedStudents(q, option);
+            int selected = StudentBits.count(picked);
+            int top = StudentBits.countAnd(picked, groups.top());
+            int bottom = StudentBits.countAnd(picked, groups.bottom());
+            int middle = selected - StudentBits.countAnd(picked, groups.topOrBottom());
+            optionResponses += selected;
+
+            long[] pickedScored = StudentBits.and(picked, matrix.scoredStudents());
+            int scored = StudentBits.count(pickedScored);
+            Double meanScore = scored > 0 ? matrix.scoreSum(pickedScored) / scored : null;
+
+            double selectedRatio = responses > 0 ? (double) selected / responses : 0.0;
+            double topRatio = groups.topCount() > 0 ? (double) top / groups.topCount() : 0.0;
+            double bottomRatio = groups.bottomCount() > 0 ? (double) bottom / groups.bottomCount() : 0.0;
+            boolean correct = answers.isCorrect(option);
+
+            options.add(new OptionAnalysis(
+                    String.valueOf(answers.answer(option).id()),
+                    answers.text(option),
+                    correct,
+                    selected,
+                    selectedRatio,
+                    top,
+                    middle,
+                    bottom,
+                    topRatio - bottomRatio,
+                    meanScore,
+                    flags(correct, responses, selectedRatio, topRatio, bottomRatio)));
+        }
+
+        return new QuestionDistractors(
+                q + 1,
+                question.questionType(),
+                responses,
+                responses - optionResponses,
+                options);
+    }
+
+    private List<OptionFlag> flags(boolean correct, int responses, double selectedRatio, double topRatio,
+            double bottomRatio) {
+        List<OptionFlag> flags = new ArrayList<>();
+        if (responses == 0) {
+            return flags;
+        }
+        if (correct) {
+            if (bottomRatio > topRatio) {
+                flags.add(OptionFlag.KEY_FAVORS_BOTTOM_GROUP);
+            }
+        } else {
+            if (selectedRatio < NON_FUNCTIONING_RATIO) {
+                flags.add(OptionFlag.NON_FUNCTIONING);
+            }
+            if (topRatio > bottomRatio) {
+                flags.add(OptionFlag.ATTRACTS_TOP_GROUP);
+            }
+        }
+        return flags;
+    }
+}
@@ -0,0 +1,242 @@
+package com.qtihelper.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.entity.QuizStatisticsEntry;
+import com.qtihelper.demo.entity.QuizStatisticsStudent;
+import com.qtihelper.demo.model.QuizStatistics;
+import com.qtihelper.demo.model.StudentSubmission;
+import com.qtihelper.demo.repository.QuizStatisticsEntryRepository;
+import com.qtihelper.demo.repository.QuizStatisticsStudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Running per-quiz statistics that grow as new submission CSVs arrive.
+ *
+ * Each quiz keeps a {@link StatisticsAccumulator} persisted as JSON in the
+ * quiz_statistics table, and the IDs of the students it counts as rows of
+ * quiz_statistics_students. A full upload replaces both; an incremental
+ * upload looks up only its own IDs, accumulates the students not seen
+ * before, merges that delta in and inserts their IDs. The accumulator's size
+ * depends on the quiz, not the class, so the cost of an update is
+ * proportional to the new rows rather than the whole history. Updates of the
+ * same quiz are serialized.
+ */
+@Service
+public class IncrementalStatisticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalStatisticsService.class);
+    // Uploaded rows looked up per query (keeps the IN list under SQLite's parameter limit)
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    private final QuizStatisticsEntryRepository repository;
+    private final QuizStatisticsStudentRepository studentRepository;
+    private final TransactionTemplate transaction;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<Long, Object> quizLocks = new ConcurrentHashMap<>();
+
+    public IncrementalStatisticsService(QuizStatisticsEntryRepository repository,
+            QuizStatisticsStudentRepository studentRepository, TransactionTemplate transaction,
+            ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.studentRepository = studentRepository;
+        this.transaction = transaction;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Replace a quiz's running statistics with those of a complete upload.
+     * Quizzes without an ID (e.g. hand-written offline JSON) are not stored.
+     *
+     * @throws org.springframework.dao.DataAccessException if the statistics cannot be stored
+     */
+    public void replace(CanvasQuizDto quiz, List<CanvasQuestionDto> questions, ResponseMatrix matrix) {
+        if (quiz.id() == null) {
+            log.debug("Quiz '{}' has no ID, not storing statistics", quiz.title());
+            return;
+        }
+        synchronized (lockFor(quiz.id())) {
+            save(quiz.id(), StatisticsAccumulator.of(quiz, questions, matrix), true);
+        }
+    }
+
+    /**
+     * Merge new submissions into a quiz's running statistics.
+     * Students already counted, and repeated rows within the upload, are
+     * skipped. The submissions are encoded as they are read.
+     *
+     * @return Statistics over every student accumulated so far
+     * @throws IllegalArgumentException if the quiz ID is missing or the
+     *                                  questions don't match the stored statistics
+     * @throws org.springframework.dao.DataAccessException if the statistics cannot be stored
+     */
+    public QuizStatistics merge(CanvasQuizDto quiz, List<CanvasQuestionDto> questions,
+            Stream<StudentSubmission> submissions) {
+        if (quiz.id() == null) {
+            throw new IllegalArgumentException("Incremental statistics require a quiz ID");
+        }
+
+        synchronized (lockFor(quiz.id())) {
+            Optional<StatisticsAccumulator> stored = load(quiz.id());
+            ResponseMatrix.Builder newSubmissions = ResponseMatrix.builder(questions);
+            Set<String> uploadIds = new HashSet<>();
+            List<StudentSubmission> batch = new ArrayList<>(LOOKUP_BATCH_SIZE);
+            int uploaded = 0;
+            Iterator<StudentSubmission> iterator = submissions.iterator();
+            while (iterator.hasNext()) {
+                StudentSubmission submission = iterator.next();
+                uploaded++;
+                String studentId = submission.getStudentId();
+                boolean hasId = studentId != null && !studentId.isBlank();
+                if (hasId && !uploadIds.add(studentId)) {
+                    continue;
+                }
+                batch.add(submission);
+                if (batch.size() == LOOKUP_BATCH_SIZE) {
+                    addUncounted(quiz.id(), stored.isPresent(), batch, newSubmissions);
+                }
+            }
+            addUncounted(quiz.id(), stored.isPresent(), batch, newSubmissions);
+            ResponseMatrix matrix = newSubmissions.build();
+            log.info("Merging {} new of {} uploaded submissions into statistics for quiz {}",
+                    matrix.studentCount(), uploaded, quiz.id());
+
+            StatisticsAccumulator delta = StatisticsAccumulator.of(quiz, questions, matrix);
+            StatisticsAccumulator accumulator = stored.orElse(null);
+            if (accumulator == null) {
+                accumulator = delta;
+            } else {
+                accumulator.merge(delta);
+            }
+
+            // Without stored statistics, rows left in the student table count for nothing
+            save(quiz.id(), accumulator, stored.isEmpty());
+            return accumulator.toQuizStatistics(Instant.now());
+        }
+    }
+
+    /**
+     * Stored statistics of a quiz, if any upload has been recorded.
+     */
+    public Optional<QuizStatistics> get(Long quizId) {
+        try {
+            return repository.findByQuizId(quizId)
+                    .map(entry -> readPayload(entry.getPayload()).toQuizStatistics(entry.getUpdatedAt()));
+        } catch (Exception e) {
+            log.warn("Failed to load statistics for quiz {}: {}", quizId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Drop a quiz's stored statistics.
+     *
+     * @return true if there was anything to drop
+     */
+    public boolean reset(Long quizId) {
+        synchronized (lockFor(quizId)) {
+            Optional<QuizStatisticsEntry> entry = repository.findByQuizId(quizId);
+            transaction.executeWithoutResult(status -> {
+                entry.ifPresent(repository::delete);
+                studentRepository.deleteByQuizId(quizId);
+            });
+            return entry.isPresent();
+        }
+    }
+
+    /**
+     * Add the submissions of a batch whose students are not counted yet, then
+     * empty the batch. Without stored statistics nobody is counted.
+     */
+    private void addUncounted(Long quizId, boolean hasStored, List<StudentSubmission> batch,
+            ResponseMatrix.Builder builder) {
+        Set<String> counted = Set.of();
+        if (hasStored) {
+            List<String> ids = new ArrayList<>(batch.size());
+            for (StudentSubmission submission : batch) {
+                String studentId = submission.getStudentId();
+                if (studentId != null && !studentId.isBlank()) {
+                    ids.add(studentId);
+                }
+            }
+            if (!ids.isEmpty()) {
+                counted = studentRepository.findCountedStudentIds(quizId, ids);
+            }
+        }
+        for (StudentSubmission submission : batch) {
+            if (!counted.contains(submission.getStudentId())) {
+                builder.add(submission);
+            }
+        }
+        batch.clear();
+    }
+
+    private Object lockFor(Long quizId) {
+        return quizLocks.computeIfAbsent(quizId, id -> new Object());
+    }
+
+    private Optional<StatisticsAccumulator> load(Long quizId) {
+        return repository.findByQuizId(quizId).map(entry -> readPayload(entry.getPayload()));
+    }
+
+    /**
+     * Write the accumulator and insert its new student IDs in one transaction,
+     * so the counted students always match the stored sums. Failures
+     * propagate: callers must not report statistics that were never stored.
+     *
+     * @param replace whether to forget the students counted so far first
+     */
+    private void save(Long quizId, StatisticsAccumulator accumulator, boolean replace) {
+        QuizStatisticsEntry entry = repository.findByQuizId(quizId)
+                .orElseGet(() -> new QuizStatisticsEntry(quizId));
+        entry.setPayload(writePayload(accumulator));
+        entry.setSubmissionCount(accumulator.count());
+        entry.setUpdatedAt(Instant.now());
+
+        List<QuizStatisticsStudent> students = new ArrayList<>(accumulator.newStudentIds().size());
+        for (String studentId : accumulator.newStudentIds()) {
+            students.add(new QuizStatisticsStudent(quizId, studentId));
+        }
+        transaction.executeWithoutResult(status -> {
+            if (replace) {
+                studentRepository.deleteByQuizId(quizId);
+            }
+            repository.save(entry);
+            studentRepository.saveAll(students);
+        });
+        accumulator.clearNewStudentIds();
+        log.debug("Persisted statistics for quiz {} ({} submissions, {} new students)", quizId,
+                accumulator.count(), students.size());
+    }
+
+    private String writePayload(StatisticsAccumulator accumulator) {
+        try {
+            return objectMapper.writeValueAsString(accumulator);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot encode statistics payload: " + e.getMessage(), e);
+        }
+    }
+
+    private StatisticsAccumulator readPayload(String payload) {
+        try {
+            return objectMapper.readValue(payload, StatisticsAccumulator.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Corrupt statistics payload: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.qtihelper.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An uploaded file moved to a temp file and memory-mapped read-only.
+ *
+ * The transfer goes through Part.write, which renames a part the container
+ * has already spooled to disk instead of copying it (small in-memory parts
+ * are written out). The bytes are then paged in by the OS as they are read
+ * instead of being copied onto the heap. The upload cannot be read through
+ * the MultipartFile afterwards. Close to delete the temp file; the buffer
+ * must not be used after that.
+ */
+public final class MappedUpload implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedUpload.class);
+
+    private final Path path;
+    private final ByteBuffer buffer;
+
+    private MappedUpload(Path path, ByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    public static MappedUpload of(MultipartFile file) throws IOException {
+        if (file.getSize() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Upload too large to map: " + file.getSize() + " bytes");
+        }
+        Path path = Files.createTempFile("upload-", ".tmp");
+        try {
+            // The File overload delegates to Part.write; the Path one copies the stream
+            file.transferTo(path.toFile());
+            // The mapping stays valid after the channel is closed
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return new MappedUpload(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        } catch (IOException | RuntimeException e) {
+            delete(path);
+            throw e;
+        }
+    }
+
+    /**
+     * The whole file, positioned at 0.
+     */
+    public ByteBuffer buffer() {
+        return buffer.duplicate();
+    }
+
+    @Override
+    public void close() {
+        delete(path);
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Windows refuses to delete a file that is still mapped
+            log.debug("Deferring deletion of {}: {}", path, e.getMessage());
+            path.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.CanvasProperties;
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.exception.CanvasApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of quiz metadata plus questions, keyed by (courseId, quizId).
+ *
+ * Used by the print report and analytics paths, which regenerate output for
+ * the same quiz many times during a grading session.
+ *
+ * Cache Strategy:
+ * - Size-aware: each entry is weighted by the characters of text it holds,
+ *   and least-recently-used entries are evicted once the total weight exceeds
+ *   app.canvas.quiz-content-cache.max-weight
+ * - TTL: entries older than app.canvas.quiz-content-cache.ttl-seconds are refetched
+ * - Explicit invalidation per quiz or for the whole cache
+ *
+ * Concurrency:
+ * - Single-flight: concurrent misses for the same quiz share one in-flight
+ *   CompletableFuture instead of each calling Canvas.
+ * - Invalidation unregisters the key's in-flight fetch (invalidateAll all of
+ *   them). A fetch that is no longer registered when it completes is
+ *   returned to its callers but not cached, so it cannot overwrite the
+ *   invalidation.
+ */
+@Service
+public class QuizContentCache {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizContentCache.class);
+
+    private final CanvasQuizFetcher canvasFetcher;
+    private final long maxWeight;
+    private final long ttlSeconds;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    // Guarded by this, like entries
+    private final Map<String, CompletableFuture<QuizContent>> inFlight = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QuizContentCache(CanvasQuizFetcher canvasFetcher, CanvasProperties props) {
+        this.canvasFetcher = canvasFetcher;
+        CanvasProperties.QuizContentCache config = props.quizContentCache() != null
+                ? props.quizContentCache()
+                : new CanvasProperties.QuizContentCache(20_000_000, 1800);
+        this.maxWeight = config.maxWeight();
+        this.ttlSeconds = config.ttlSeconds();
+    }
+
+    /**
+     * Get quiz metadata and questions, fetching from Canvas on a miss.
+     *
+     * @param courseId Canvas course ID
+     * @param quizId   Canvas quiz ID
+     * @return Quiz and its questions
+     */
+    public QuizContent get(String courseId, String quizId) {
+        String key = key(courseId, quizId);
+        CompletableFuture<QuizContent> created = new CompletableFuture<>();
+        CompletableFuture<QuizContent> existing;
+
+        synchronized (this) {
+            CacheEntry cached = entries.get(key);
+            if (cached != null && !cached.isExpired(ttlSeconds)) {
+                hits.incrementAndGet();
+                log.info("Quiz content cache hit for {}/{} (age: {}s)", courseId, quizId, cached.getAgeSeconds());
+                return cached.content();
+            }
+
+            misses.incrementAndGet();
+            existing = inFlight.putIfAbsent(key, created);
+        }
+
+        if (existing != null) {
+            log.info("Quiz content cache miss for {}/{}, joining in-flight fetch", courseId, quizId);
+            return await(existing);
+        }
+
+        log.info("Quiz content cache miss for {}/{}, fetching from Canvas", courseId, quizId);
+        try {
+            QuizContent content = fetch(courseId, quizId);
+            synchronized (this) {
+                // Only cache complete results; callers treat null/empty as an error
+                if (!inFlight.remove(key, created)) {
+                    log.info("Quiz content {} was invalidated during the fetch, not caching it", key);
+                } else if (content.quiz() != null && !content.questions().isEmpty()) {
+                    put(key, content);
+                }
+            }
+            created.complete(content);
+            return content;
+        } catch (RuntimeException | Error e) {
+            // Waiting callers must not hang on a fetch that died
+            synchronized (this) {
+                inFlight.remove(key, created);
+            }
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop a single quiz from the cache.
+     *
+     * @return true if an entry was removed
+     */
+    public synchronized boolean invalidate(String courseId, String quizId) {
+        String key = key(courseId, quizId);
+        // The running fetch won't cache its result, and later callers start a fresh one
+        inFlight.remove(key);
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight();
+            log.info("Invalidated quiz content cache for {}/{}", courseId, quizId);
+        }
+        return removed != null;
+    }
+
+    /**
+     * Drop every cached quiz.
+     */
+    public synchronized void invalidateAll() {
+        log.info("Clearing quiz content cache ({} entries)", entries.size());
+        inFlight.clear();
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * Snapshot of cache size and hit/miss counters.
+     */
+    public synchronized Stats stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        return new Stats(
+                entries.size(),
+                totalWeight,
+                maxWeight,
+                hitCount,
+                missCount,
+                evictions.get(),
+                requests > 0 ? (double) hitCount / requests : 0.0);
+    }
+
+    /**
+     * Fetch quiz metadata and questions from Canvas at the same time on virtual threads.
+     */
+    private QuizContent fetch(String courseId, String quizId) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<CanvasQuizDto> quiz = executor.submit(() -> canvasFetcher.getQuiz(courseId, quizId));
+            Future<List<CanvasQuestionDto>> questions = executor
+                    .submit(() -> canvasFetcher.getQuizQuestions(courseId, quizId));
+            // Cached and shared by every caller, so don't hold on to the fetcher's list
+            return new QuizContent(quiz.get(), List.copyOf(questions.get()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanvasApiException("Interrupted while fetching quiz " + courseId + "/" + quizId, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeError) {
+                throw runtimeError;
+            }
+            throw new CanvasApiException("Failed to fetch quiz " + courseId + "/" + quizId + ": "
+                    + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static QuizContent await(CompletableFuture<QuizContent> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeError) {
+                throw runtimeError;
+            }
+            throw new CanvasApiException("Canvas fetch failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private synchronized void put(String key, QuizContent content) {
+        long weight = estimateWeight(content);
+        if (weight > maxWeight) {
+            log.warn("Quiz content {} too large to cache (weight {} > max {})", key, weight, maxWeight);
+            return;
+        }
+
+        CacheEntry previous = entries.put(key, new CacheEntry(content, weight, Instant.now()));
+        if (previous != null) {
+            totalWeight -= previous.weight();
+        }
+        totalWeight += weight;
+
+        Iterator<Map.Entry<String, CacheEntry>> eldest = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            Map.Entry<String, CacheEntry> victim = eldest.next();
+            if (victim.getKey().equals(key)) {
+                continue;
+            }
+            totalWeight -= victim.getValue().weight();
+            eldest.remove();
+            evictions.incrementAndGet();
+            log.debug("Evicted quiz content {} from cache", victim.getKey());
+        }
+    }
+
+    /**
+     * Approximate size of an entry: characters of text held by the quiz and its questions.
+     */
+    private long estimateWeight(QuizContent content) {
+        long weight = length(content.quiz().title()) + length(content.quiz().description());
+        for (CanvasQuestionDto question : content.questions()) {
+            weight += length(question.questionName())
+                    + length(question.questionText())
+                    + length(question.correctComments())
+                    + length(question.incorrectComments())
+                    + length(question.neutralComments());
+            if (question.answers() != null) {
+                for (CanvasAnswerDto answer : question.answers()) {
+                    weight += length(answer.text()) + length(answer.html()) + length(answer.comments());
+                }
+            }
+        }
+        return Math.max(1, weight);
+    }
+
+    private static long length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static String key(String courseId, String quizId) {
+        return courseId + "/" + quizId;
+    }
+
+    /**
+     * Cached quiz metadata and questions.
+     */
+    public record QuizContent(CanvasQuizDto quiz, List<CanvasQuestionDto> questions) {
+    }
+
+    /**
+     * Cache size and effectiveness counters.
+     */
+    public record Stats(
+            int entries,
+            long weight,
+            long maxWeight,
+            long hits,
+            long misses,
+            long evictions,
+            double hitRatio) {
+    }
+
+    private record CacheEntry(QuizContent content, long weight, Instant timestamp) {
+        boolean isExpired(long ttlSeconds) {
+            return getAgeSeconds() > ttlSeconds;
+        }
+
+        long getAgeSeconds() {
+            return Instant.now().getEpochSecond() - timestamp.getEpochSecond();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.qtihelper.demo.model.QuizPrintViewModel.OptionView;
 import com.qtihelper.demo.model.QuizPrintViewModel.QuestionView;
 import com.qtihelper.demo.model.QuizPrintViewModel.StudentQuizView;
 import com.qtihelper.demo.model.StudentSubmission;
+import com.qtihelper.demo.util.AnswerIndex;
 import com.qtihelper.demo.util.HtmlUtils;
 import com.qtihelper.demo.util.QuizEvalUtils;
 import org.slf4j.Logger;
@@ -18,7 +19,9 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service to map PrintReport data to QuizPrintViewModel for optimized template
@@ -39,26 +42,28 @@ public class QuizPrintViewModelMapper {
      *
      * @param quiz        Canvas quiz metadata
      * @param questions   Canvas quiz questions
-     * @param submissions Student submissions from CSV
-     * @param report      Generated print report
+     * @param report      Generated print report (one student report per submission)
      * @return View-optimized model for template rendering
      */
     public QuizPrintViewModel mapToViewModel(CanvasQuizDto quiz,
             List<CanvasQuestionDto> questions,
-            List<StudentSubmission> submissions,
             PrintReport report) {
 
+        int studentCount = report.getStudentReports().size();
         log.info("Starting ViewModel mapping for quiz: {}", quiz.title());
-        log.debug("Mapping {} students with {} questions", submissions.size(), questions.size());
+        log.debug("Mapping {} students with {} questions", studentCount, questions.size());
 
         QuizPrintViewModel viewModel = new QuizPrintViewModel();
         viewModel.setQuizTitle(quiz.title());
         viewModel.setQuizId(quiz.id());
-        viewModel.setStudentCount(submissions.size());
+        viewModel.setStudentCount(studentCount);
+
+        // Answer lookups per question, shared by every student
+        Map<CanvasQuestionDto, AnswerIndex> answerIndexes = new IdentityHashMap<>();
 
         // Map each student report
         for (PrintReport.StudentReport studentReport : report.getStudentReports()) {
-            StudentQuizView studentView = mapStudent(studentReport);
+            StudentQuizView studentView = mapStudent(studentReport, answerIndexes);
             viewModel.getStudents().add(studentView);
         }
 
@@ -69,7 +74,8 @@ public class QuizPrintViewModelMapper {
     /**
      * Maps a single student's report to StudentQuizView.
      */
-    private StudentQuizView mapStudent(PrintReport.StudentReport studentReport) {
+    private StudentQuizView mapStudent(PrintReport.StudentReport studentReport,
+            Map<CanvasQuestionDto, AnswerIndex> answerIndexes) {
         StudentSubmission student = studentReport.getStudent();
         log.debug("Mapping student: {} {} (ID: {})",
                 student.getFirstName(), student.getLastName(), student.getStudentId());
@@ -83,7 +89,8 @@ public class QuizPrintViewModelMapper {
         // Map each question result
         int questionNum = 1;
         for (PrintReport.QuestionResult result : studentReport.getQuestionResults()) {
-            QuestionView questionView = mapQuestion(result, questionNum);
+            AnswerIndex answerIndex = answerIndexes.computeIfAbsent(result.getQuestion(), AnswerIndex::of);
+            QuestionView questionView = mapQuestion(result, answerIndex, questionNum);
             studentView.getQuestions().add(questionView);
 
             // Collect incorrect or unanswered question numbers
@@ -104,7 +111,8 @@ public class QuizPrintViewModelMapper {
     /**
      * Maps a single question result to QuestionView.
      */
-    private QuestionView mapQuestion(PrintReport.QuestionResult result, int questionNumber) {
+    private QuestionView mapQuestion(PrintReport.QuestionResult result, AnswerIndex answerIndex,
+            int questionNumber) {
         CanvasQuestionDto question = result.getQuestion();
 
         log.debug("Mapping question {} (type: {})", questionNumber, question.questionType());
@@ -129,7 +137,7 @@ public class QuizPrintViewModelMapper {
         // Map answer options if they exist
         if (question.answers() != null && !question.answers().isEmpty()) {
             questionView.setHasOptions(true);
-            List<OptionView> options = mapOptions(question, result);
+            List<OptionView> options = mapOptions(question, answerIndex, result);
             questionView.setOptions(options);
             log.debug("Question {} has {} options", questionNumber, options.size());
         } else {
@@ -143,7 +151,8 @@ public class QuizPrintViewModelMapper {
     /**
      * Maps answer options to OptionView list with visual markers.
      */
-    private List<OptionView> mapOptions(CanvasQuestionDto question, PrintReport.QuestionResult result) {
+    private List<OptionView> mapOptions(CanvasQuestionDto question, AnswerIndex answerIndex,
+            PrintReport.QuestionResult result) {
         List<OptionView> options = new ArrayList<>();
 
         int index = 0;
@@ -154,14 +163,14 @@ public class QuizPrintViewModelMapper {
             optionView.setOptionLetter(String.valueOf((char) ('A' + index)));
 
             // Strip HTML from option text
-            optionView.setOptionText(HtmlUtils.stripHtml(answer.text()));
+            optionView.setOptionText(answerIndex.text(index));
 
             // Determine if this option is correct
             optionView.setCorrect(answer.isCorrect());
 
             // Determine if student selected this option
             boolean isStudentAnswer = QuizEvalUtils.isStudentAnswerMatch(
-                    answer, result.getStudentAnswer(), index, question.questionType());
+                    answerIndex, result.getStudentAnswer(), index, question.questionType());
             optionView.setStudentAnswer(isStudentAnswer);
 
             // Compute visual marker
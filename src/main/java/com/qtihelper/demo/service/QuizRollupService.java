@@ -0,0 +1,338 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.model.AnalyticsRollup;
+import com.qtihelper.demo.model.AnalyticsRollup.CourseRollup;
+import com.qtihelper.demo.model.AnalyticsRollup.QuestionOccurrence;
+import com.qtihelper.demo.model.AnalyticsRollup.QuizResult;
+import com.qtihelper.demo.model.AnalyticsRollup.QuizTrendPoint;
+import com.qtihelper.demo.model.AnalyticsRollup.ReusedQuestion;
+import com.qtihelper.demo.model.AnalyticsRollup.StudentHistory;
+import com.qtihelper.demo.model.AnalyticsRollup.StudentScore;
+import com.qtihelper.demo.model.QuizStatistics;
+import com.qtihelper.demo.model.QuizStatistics.QuestionStatistics;
+import com.qtihelper.demo.model.StudentSubmission;
+import com.qtihelper.demo.util.AnswerIndex;
+import com.qtihelper.demo.util.ByteBufferInputStream;
+import com.qtihelper.demo.util.HtmlUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Statistics over many quiz uploads at once, for department reviews.
+ *
+ * Every upload (a submissions CSV plus its quiz, given inline or fetched from
+ * Canvas) is analyzed on its own virtual thread; fetching overlaps freely,
+ * while parsing and statistics run at most one per processor. Results are
+ * handed to the caller in completion order, on the calling thread, and then
+ * rolled up into an {@link AnalyticsRollup}. A failed upload is reported and
+ * left out of the roll-up rather than failing the batch.
+ */
+@Service
+public class QuizRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizRollupService.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final StatisticsService statisticsService;
+    private final StudentSubmissionParser submissionParser;
+    private final QuizContentCache quizContentCache;
+
+    public QuizRollupService(StatisticsService statisticsService, StudentSubmissionParser submissionParser,
+            QuizContentCache quizContentCache) {
+        this.statisticsService = statisticsService;
+        this.submissionParser = submissionParser;
+        this.quizContentCache = quizContentCache;
+    }
+
+    /**
+     * One quiz's submissions. The quiz comes from content when given (offline
+     * JSON), otherwise from Canvas by courseId and quizId. The CSV is read
+     * from its buffer's position to its limit, e.g. a {@link MappedUpload}
+     * that must stay open until the roll-up is done.
+     */
+    public record QuizUpload(
+            String name,
+            String courseId,
+            String quizId,
+            QuizContentCache.QuizContent content,
+            ByteBuffer csv) {
+
+        public QuizUpload(String name, String courseId, String quizId, QuizContentCache.QuizContent content,
+                byte[] csv) {
+            this(name, courseId, quizId, content, ByteBuffer.wrap(csv));
+        }
+    }
+
+    /**
+     * Analyze every upload and roll the results up.
+     *
+     * @param onQuizDone Called with each upload's result as soon as it finishes
+     * @throws InterruptedException if interrupted while waiting for results
+     */
+    public AnalyticsRollup rollUp(List<QuizUpload> uploads, Consumer<QuizResult> onQuizDone)
+            throws InterruptedException {
+        log.info("Rolling up statistics for {} quiz uploads", uploads.size());
+        long startTime = System.currentTimeMillis();
+
+        Semaphore permits = new Semaphore(Runtime.getRuntime().availableProcessors());
+        List<QuizOutcome> outcomes = new ArrayList<>();
+        int failed = 0;
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            CompletionService<QuizOutcome> completion = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < uploads.size(); i++) {
+                int index = i;
+                completion.submit(() -> analyze(index, uploads.get(index), permits));
+            }
+            for (int i = 0; i < uploads.size(); i++) {
+                QuizOutcome outcome = completion.take().get();
+                onQuizDone.accept(outcome.result());
+                if (outcome.result().statistics() != null) {
+                    outcomes.add(outcome);
+                } else {
+                    failed++;
+                }
+            }
+        } catch (ExecutionException e) {
+            // analyze() reports its own failures, so this is an Error
+            throw new IllegalStateException("Quiz analysis failed", e.getCause());
+        } finally {
+            // Stops outstanding work if the caller gave up (e.g. client disconnected)
+            executor.shutdownNow();
+        }
+
+        outcomes.sort(Comparator.comparingInt(outcome -> outcome.result().index()));
+        AnalyticsRollup rollup = new AnalyticsRollup(
+                Instant.now(),
+                outcomes.size(),
+                failed,
+                courseRollups(outcomes),
+                reusedQuestions(outcomes),
+                studentHistories(outcomes));
+
+        log.info("Rolled up {} quizzes ({} failed) in {}ms", outcomes.size(), failed,
+                System.currentTimeMillis() - startTime);
+        return rollup;
+    }
+
+    private QuizOutcome analyze(int index, QuizUpload upload, Semaphore permits) {
+        try {
+            QuizContentCache.QuizContent content = upload.content() != null
+                    ? upload.content()
+                    : quizContentCache.get(upload.courseId(), upload.quizId());
+            if (content.quiz() == null || content.questions().isEmpty()) {
+                throw new IllegalArgumentException("Quiz or questions not found");
+            }
+
+            permits.acquire();
+            try {
+                ResponseMatrix.Builder matrix = ResponseMatrix.builder(content.questions());
+                List<Attempt> attempts = new ArrayList<>();
+                ScoreDistribution scores = new ScoreDistribution();
+                try (Stream<StudentSubmission> submissions = submissionParser.streamSubmissions(
+                        new ByteBufferInputStream(upload.csv().duplicate()), content.questions())) {
+                    submissions.forEachOrdered(submission -> {
+                        matrix.add(submission);
+                        attempts.add(new Attempt(submission.getStudentId(), displayName(submission),
+                                submission.getTotalScore()));
+                        if (submission.getTotalScore() != null) {
+                            scores.add(submission.getTotalScore());
+                        }
+                    });
+                }
+                QuizStatistics statistics = statisticsService.computeStatistics(
+                        content.quiz(), content.questions(), matrix.build());
+                return new QuizOutcome(
+                        new QuizResult(index, upload.name(), upload.courseId(), statistics, null),
+                        content.questions(), attempts, scores);
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failure(index, upload, "Interrupted");
+        } catch (Exception e) {
+            log.warn("Failed to analyze quiz upload '{}': {}", upload.name(), e.getMessage());
+            return failure(index, upload, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private static QuizOutcome failure(int index, QuizUpload upload, String error) {
+        return new QuizOutcome(new QuizResult(index, upload.name(), upload.courseId(), null, error),
+                List.of(), List.of(), null);
+    }
+
+    private static List<CourseRollup> courseRollups(List<QuizOutcome> outcomes) {
+        // LinkedHashMap permits the null key of quizzes without a course
+        Map<String, List<QuizOutcome>> byCourse = new LinkedHashMap<>();
+        for (QuizOutcome outcome : outcomes) {
+            byCourse.computeIfAbsent(outcome.result().courseId(), id -> new ArrayList<>()).add(outcome);
+        }
+
+        List<CourseRollup> courses = new ArrayList<>();
+        byCourse.forEach((courseId, quizzes) -> {
+            ScoreDistribution scores = new ScoreDistribution();
+            List<QuizTrendPoint> points = new ArrayList<>();
+            int submissionCount = 0;
+            for (QuizOutcome outcome : quizzes) {
+                scores.merge(outcome.scores());
+                submissionCount += outcome.attempts().size();
+                points.add(trendPoint(outcome));
+            }
+            courses.add(new CourseRollup(courseId, quizzes.size(), submissionCount, scores.toPercentiles(),
+                    difficultySlope(points), points));
+        });
+        return courses;
+    }
+
+    private static QuizTrendPoint trendPoint(QuizOutcome outcome) {
+        QuizResult result = outcome.result();
+        QuizStatistics statistics = result.statistics();
+        double difficulty = 0.0;
+        double discrimination = 0.0;
+        for (QuestionStatistics question : statistics.questionStatistics().values()) {
+            difficulty += question.correctStudentRatio();
+            discrimination += question.discriminationIndex();
+        }
+        int questionCount = Math.max(1, statistics.questionStatistics().size());
+        QuizStatistics.ScorePercentiles percentiles = statistics.submissionStatistics().percentiles();
+
+        return new QuizTrendPoint(
+                result.name(),
+                statistics.quizId(),
+                statistics.quizTitle(),
+                statistics.submissionStatistics().uniqueCount(),
+                statistics.submissionStatistics().scoreAverage(),
+                percentiles != null ? percentiles.median() : null,
+                difficulty / questionCount,
+                discrimination / questionCount,
+                statistics.reliability().alpha());
+    }
+
+    /**
+     * Least-squares slope of mean difficulty against quiz position.
+     */
+    private static Double difficultySlope(List<QuizTrendPoint> points) {
+        int n = points.size();
+        if (n < 2) {
+            return null;
+        }
+        double meanX = (n - 1) / 2.0;
+        double meanY = points.stream().mapToDouble(QuizTrendPoint::meanDifficulty).average().orElse(0.0);
+        double covariance = 0.0;
+        double varianceX = 0.0;
+        for (int x = 0; x < n; x++) {
+            covariance += (x - meanX) * (points.get(x).meanDifficulty() - meanY);
+            varianceX += (x - meanX) * (x - meanX);
+        }
+        return covariance / varianceX;
+    }
+
+    /**
+     * Questions whose text (HTML-stripped, whitespace-collapsed, ignoring case)
+     * appears in at least two uploads.
+     */
+    private static List<ReusedQuestion> reusedQuestions(List<QuizOutcome> outcomes) {
+        Map<String, String> texts = new LinkedHashMap<>();
+        Map<String, List<QuestionOccurrence>> occurrences = new LinkedHashMap<>();
+        Map<String, Set<Integer>> uploads = new LinkedHashMap<>();
+
+        for (QuizOutcome outcome : outcomes) {
+            QuizStatistics statistics = outcome.result().statistics();
+            for (int q = 0; q < outcome.questions().size(); q++) {
+                String text = WHITESPACE.matcher(HtmlUtils.stripHtml(outcome.questions().get(q).questionText()))
+                        .replaceAll(" ").trim();
+                QuestionStatistics question = statistics.questionStatistics().get(q + 1);
+                if (text.isEmpty() || question == null) {
+                    continue;
+                }
+                String key = AnswerIndex.foldCase(text);
+                texts.putIfAbsent(key, text);
+                uploads.computeIfAbsent(key, k -> new HashSet<>()).add(outcome.result().index());
+                occurrences.computeIfAbsent(key, k -> new ArrayList<>()).add(new QuestionOccurrence(
+                        outcome.result().courseId(),
+                        statistics.quizId(),
+                        statistics.quizTitle(),
+                        q + 1,
+                        question.difficultyIndex(),
+                        question.discriminationIndex()));
+            }
+        }
+
+        List<ReusedQuestion> reused = new ArrayList<>();
+        occurrences.forEach((key, list) -> {
+            if (uploads.get(key).size() >= 2) {
+                reused.add(new ReusedQuestion(texts.get(key), list));
+            }
+        });
+        return reused;
+    }
+
+    private static List<StudentHistory> studentHistories(List<QuizOutcome> outcomes) {
+        Map<String, String> names = new LinkedHashMap<>();
+        Map<String, List<StudentScore>> scores = new LinkedHashMap<>();
+
+        for (QuizOutcome outcome : outcomes) {
+            QuizStatistics statistics = outcome.result().statistics();
+            for (Attempt attempt : outcome.attempts()) {
+                if (attempt.studentId() == null || attempt.studentId().isBlank()) {
+                    continue;
+                }
+                if (!attempt.name().isEmpty()) {
+                    names.putIfAbsent(attempt.studentId(), attempt.name());
+                }
+                scores.computeIfAbsent(attempt.studentId(), id -> new ArrayList<>()).add(new StudentScore(
+                        outcome.result().courseId(),
+                        statistics.quizId(),
+                        statistics.quizTitle(),
+                        attempt.score(),
+                        statistics.submissionStatistics().scoreAverage()));
+            }
+        }
+
+        List<StudentHistory> histories = new ArrayList<>(scores.size());
+        scores.forEach((studentId, list) -> histories.add(new StudentHistory(studentId, names.get(studentId), list)));
+        return histories;
+    }
+
+    private static String displayName(StudentSubmission submission) {
+        String first = submission.getFirstName() != null ? submission.getFirstName() : "";
+        String last = submission.getLastName() != null ? submission.getLastName() : "";
+        return (first + " " + last).trim();
+    }
+
+    /**
+     * Everything the roll-up needs from one analyzed upload.
+     */
+    private record QuizOutcome(
+            QuizResult result,
+            List<CanvasQuestionDto> questions,
+            List<Attempt> attempts,
+            ScoreDistribution scores) {
+    }
+
+    private record Attempt(String studentId, String name, Double score) {
+    }
+}
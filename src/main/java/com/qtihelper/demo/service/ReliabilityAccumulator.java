@@ -0,0 +1,151 @@
+package com.qtihelper.demo.service;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+
+/**
+ * Streaming accumulator for test reliability (Cronbach's alpha) over an item
+ * score matrix, one student row at a time.
+ *
+ * Keeps Welford-style running means and centered sums of squares for every
+ * item and for the total score, plus each item's co-moment with the total.
+ * That is O(items) state, independent of the number of students, and enough
+ * for alpha-if-item-deleted: Var(X - x_j) = Var(X) + Var(x_j) - 2 Cov(x_j, X).
+ *
+ * With items scored 0/1 (correct/incorrect), alpha equals KR-20. Accumulators
+ * over disjoint sets of students can be merged (Chan et al. pairwise update),
+ * and are serialized field by field so they can be persisted and resumed.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public final class ReliabilityAccumulator {
+
+    // Centered sums below this are treated as zero variance (rounding noise)
+    private static final double EPSILON = 1e-9;
+
+    private int itemCount;
+    private long count;
+    private double totalMean;
+    private double totalM2;
+    private double[] itemMean;
+    private double[] itemM2;
+    private double[] itemTotalComoment;
+
+    // For deserialization
+    private ReliabilityAccumulator() {
+        this(0);
+    }
+
+    public ReliabilityAccumulator(int itemCount) {
+        this.itemCount = itemCount;
+        this.itemMean = new double[itemCount];
+        this.itemM2 = new double[itemCount];
+        this.itemTotalComoment = new double[itemCount];
+    }
+
+    /**
+     * Add one student's item scores (length must equal the item count).
+     */
+    public void add(double[] itemScores) {
+        if (itemScores.length != itemCount) {
+            throw new IllegalArgumentException(
+                    "Expected " + itemCount + " item scores but got " + itemScores.length);
+        }
+
+        double total = 0.0;
+        for (double score : itemScores) {
+            total += score;
+        }
+
+        count++;
+        double totalDelta = total - totalMean;
+        totalMean += totalDelta / count;
+        double totalDeltaAfter = total - totalMean;
+        totalM2 += totalDelta * totalDeltaAfter;
+
+        for (int i = 0; i < itemCount; i++) {
+            double delta = itemScores[i] - itemMean[i];
+            itemMean[i] += delta / count;
+            itemM2[i] += delta * (itemScores[i] - itemMean[i]);
+            itemTotalComoment[i] += delta * totalDeltaAfter;
+        }
+    }
+
+    /**
+     * Fold another accumulator (over different students) into this one.
+     */
+    public void merge(ReliabilityAccumulator other) {
+        if (other.itemCount != itemCount) {
+            throw new IllegalArgumentException(
+                    "Cannot merge accumulators over " + other.itemCount + " and " + itemCount + " items");
+        }
+        if (other.count == 0) {
+            return;
+        }
+
+        long combined = count + other.count;
+        double weight = (double) count * other.count / combined;
+        double totalDelta = other.totalMean - totalMean;
+
+        for (int i = 0; i < itemCount; i++) {
+            double delta = other.itemMean[i] - itemMean[i];
+            itemM2[i] += other.itemM2[i] + delta * delta * weight;
+            itemTotalComoment[i] += other.itemTotalComoment[i] + delta * totalDelta * weight;
+            itemMean[i] += delta * other.count / combined;
+        }
+        totalM2 += other.totalM2 + totalDelta * totalDelta * weight;
+        totalMean += totalDelta * other.count / combined;
+        count = combined;
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Population variance of the total score.
+     */
+    public double totalVariance() {
+        return count > 0 ? totalM2 / count : 0.0;
+    }
+
+    /**
+     * Cronbach's alpha: k/(k-1) × (1 - Σ Var(x_i) / Var(X)).
+     * Null with fewer than two items or students, or when total scores don't vary.
+     */
+    public Double alpha() {
+        if (itemCount < 2 || count < 2 || totalM2 <= EPSILON) {
+            return null;
+        }
+        double itemVarianceSum = 0.0;
+        for (double m2 : itemM2) {
+            itemVarianceSum += m2;
+        }
+        return (double) itemCount / (itemCount - 1) * (1 - itemVarianceSum / totalM2);
+    }
+
+    /**
+     * Alpha of the test with item j removed. Null with fewer than three items,
+     * or when the remaining total doesn't vary.
+     */
+    public Double alphaIfDeleted(int item) {
+        if (itemCount < 3 || count < 2) {
+            return null;
+        }
+        double restM2 = totalM2 + itemM2[item] - 2 * itemTotalComoment[item];
+        if (restM2 <= EPSILON) {
+            return null;
+        }
+        double itemVarianceSum = 0.0;
+        for (int i = 0; i < itemCount; i++) {
+            if (i != item) {
+                itemVarianceSum += itemM2[i];
+            }
+        }
+        return (double) (itemCount - 1) / (itemCount - 2) * (1 - itemVarianceSum / restM2);
+    }
+}
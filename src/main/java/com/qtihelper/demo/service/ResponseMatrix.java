@@ -0,0 +1,282 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.model.StudentSubmission;
+import com.qtihelper.demo.util.AnswerIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Columnar view of a quiz's submissions for item analysis.
+ *
+ * Built once per statistics run, from a list or one student at a time
+ * (see {@link Builder}): total scores go into a double[] (NaN when
+ * missing), and every response fact is a bitset over students (see
+ * {@link StudentBits}): per question, who answered and who got it right, and
+ * per (question, option), who selected that option. Counts such as "top group
+ * students who picked option B" are then popcounts of intersections, and the
+ * whole matrix takes a few bits per student and question.
+ *
+ * Each distinct response text is graded once per question against the
+ * question's {@link AnswerIndex}.
+ */
+public final class ResponseMatrix {
+
+    /** No response, or a blank one. */
+    public static final int NO_RESPONSE = -1;
+    /** A non-blank response that doesn't name an answer option by ID (e.g. answer text). */
+    public static final int OTHER = -2;
+
+    private final String[] studentIds;
+    private final double[] totalScores;
+    private final long[] scored; // students with a total score
+    private final long[][] answered; // question -> students with a non-blank response
+    private final long[][] correct; // question -> students who got it right
+    private final long[][][] selected; // question -> option -> students who picked it
+
+    private ResponseMatrix(String[] studentIds, double[] totalScores, long[] scored, long[][] answered,
+            long[][] correct, long[][][] selected) {
+        this.studentIds = studentIds;
+        this.totalScores = totalScores;
+        this.scored = scored;
+        this.answered = answered;
+        this.correct = correct;
+        this.selected = selected;
+    }
+
+    /**
+     * Encode submissions against the quiz questions. Question i (0-based) reads
+     * the response stored at position i + 1.
+     */
+    public static ResponseMatrix build(List<CanvasQuestionDto> questions, List<StudentSubmission> submissions) {
+        return build(questions, submissions.stream());
+    }
+
+    /**
+     * Encode submissions as they are read, e.g. straight from a CSV stream,
+     * without holding them all in memory.
+     */
+    public static ResponseMatrix build(List<CanvasQuestionDto> questions, Stream<StudentSubmission> submissions) {
+        Builder builder = builder(questions);
+        submissions.forEachOrdered(builder::add);
+        return builder.build();
+    }
+
+    public static Builder builder(List<CanvasQuestionDto> questions) {
+        return new Builder(questions);
+    }
+
+    /**
+     * Adds students one at a time; the bitsets grow as students arrive.
+     */
+    public static final class Builder {
+
+        private final AnswerIndex[] answers;
+        private final List<Map<String, Cell>> gradedResponses; // question -> response text -> cell
+        private int studentCount;
+        private int words = 1;
+        private String[] studentIds = new String[64];
+        private double[] totalScores = new double[64];
+        private long[] scored = new long[1];
+        private final long[][] answered;
+        private final long[][] correct;
+        private final long[][][] selected;
+
+        private Builder(List<CanvasQuestionDto> questions) {
+            int questionCount = questions.size();
+            answers = new AnswerIndex[questionCount];
+            gradedResponses = new ArrayList<>(questionCount);
+            answered = new long[questionCount][];
+            correct = new long[questionCount][];
+            selected = new long[questionCount][][];
+            for (int q = 0; q < questionCount; q++) {
+                answers[q] = AnswerIndex.of(questions.get(q));
+                gradedResponses.add(new HashMap<>());
+                answered[q] = new long[words];
+                correct[q] = new long[words];
+                selected[q] = new long[answers[q].size()][];
+                for (int option = 0; option < answers[q].size(); option++) {
+                    selected[q][option] = new long[words];
+                }
+            }
+        }
+
+        public Builder add(StudentSubmission submission) {
+            int s = studentCount++;
+            if (s == studentIds.length) {
+                studentIds = Arrays.copyOf(studentIds, s * 2);
+                totalScores = Arrays.copyOf(totalScores, s * 2);
+            }
+            if ((s >>> 6) == words) {
+                grow();
+            }
+
+            studentIds[s] = submission.getStudentId();
+            Double score = submission.getTotalScore();
+            totalScores[s] = score != null ? score : Double.NaN;
+            if (score != null) {
+                StudentBits.set(scored, s);
+            }
+
+            for (int q = 0; q < answers.length; q++) {
+                String answer = submission.getResponse(q + 1);
+                if (answer == null || answer.isBlank()) {
+                    continue;
+                }
+                AnswerIndex index = answers[q];
+                Cell cell = gradedResponses.get(q).computeIfAbsent(answer, text -> grade(text, index));
+                StudentBits.set(answered[q], s);
+                if (cell.option() >= 0) {
+                    StudentBits.set(selected[q][cell.option()], s);
+                }
+                if (cell.correct()) {
+                    StudentBits.set(correct[q], s);
+                }
+            }
+            return this;
+        }
+
+        public ResponseMatrix build() {
+            // Trim to the exact student count so bitsets of the same matrix line up
+            int length = StudentBits.create(studentCount).length;
+            for (int q = 0; q < answers.length; q++) {
+                answered[q] = Arrays.copyOf(answered[q], length);
+                correct[q] = Arrays.copyOf(correct[q], length);
+                for (int option = 0; option < selected[q].length; option++) {
+                    selected[q][option] = Arrays.copyOf(selected[q][option], length);
+                }
+            }
+            return new ResponseMatrix(Arrays.copyOf(studentIds, studentCount),
+                    Arrays.copyOf(totalScores, studentCount), Arrays.copyOf(scored, length),
+                    answered, correct, selected);
+        }
+
+        private void grow() {
+            words *= 2;
+            scored = Arrays.copyOf(scored, words);
+            for (int q = 0; q < answers.length; q++) {
+                answered[q] = Arrays.copyOf(answered[q], words);
+                correct[q] = Arrays.copyOf(correct[q], words);
+                for (int option = 0; option < selected[q].length; option++) {
+                    selected[q][option] = Arrays.copyOf(selected[q][option], words);
+                }
+            }
+        }
+    }
+
+    public int studentCount() {
+        return studentIds.length;
+    }
+
+    public int questionCount() {
+        return selected.length;
+    }
+
+    public String studentId(int student) {
+        return studentIds[student];
+    }
+
+    /**
+     * Total score of a student, or NaN if the export had none.
+     */
+    public double totalScore(int student) {
+        return totalScores[student];
+    }
+
+    public boolean hasScore(int student) {
+        return StudentBits.get(scored, student);
+    }
+
+    /**
+     * Selected option index for (student, question), {@link #NO_RESPONSE} or {@link #OTHER}.
+     */
+    public int response(int student, int question) {
+        if (!StudentBits.get(answered[question], student)) {
+            return NO_RESPONSE;
+        }
+        long[][] options = selected[question];
+        for (int option = 0; option < options.length; option++) {
+            if (StudentBits.get(options[option], student)) {
+                return option;
+            }
+        }
+        return OTHER;
+    }
+
+    public boolean answered(int student, int question) {
+        return StudentBits.get(answered[question], student);
+    }
+
+    public boolean isCorrect(int student, int question) {
+        return StudentBits.get(correct[question], student);
+    }
+
+    /**
+     * Number of answer options of a question.
+     */
+    public int optionCount(int question) {
+        return selected[question].length;
+    }
+
+    // Bitset views below are shared, not copies: callers must not modify them
+
+    /**
+     * Students with a total score.
+     */
+    long[] scoredStudents() {
+        return scored;
+    }
+
+    /**
+     * Students who gave a non-blank response to a question.
+     */
+    long[] answeredStudents(int question) {
+        return answered[question];
+    }
+
+    /**
+     * Students who answered a question correctly.
+     */
+    long[] correctStudents(int question) {
+        return correct[question];
+    }
+
+    /**
+     * Students who selected an answer option of a question.
+     */
+    long[] selectedStudents(int question, int option) {
+        return selected[question][option];
+    }
+
+    /**
+     * Sum of the total scores of a set of scored students, added in student order.
+     */
+    double scoreSum(long[] students) {
+        double sum = 0.0;
+        for (int w = 0; w < students.length; w++) {
+            long word = students[w];
+            while (word != 0) {
+                sum += totalScores[(w << 6) + Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Option index: the first answer whose ID matches the raw response exactly.
+     * Correctness: any correct answer whose ID or text matches the trimmed response.
+     */
+    private static Cell grade(String response, AnswerIndex answers) {
+        int option = answers.optionForId(response);
+        return new Cell(option >= 0 ? option : OTHER, answers.isCorrectIdOrRawText(response.trim()));
+    }
+
+    private record Cell(int option, boolean correct) {
+    }
+}
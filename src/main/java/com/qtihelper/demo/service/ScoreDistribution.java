@@ -0,0 +1,278 @@
+package com.qtihelper.demo.service;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.qtihelper.demo.model.QuizStatistics.ScorePercentiles;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable distribution of total scores for percentiles and the median.
+ *
+ * Small classes keep every score and answer quantiles exactly (linear
+ * interpolation between order statistics, as in spreadsheet PERCENTILE.INC).
+ * Past {@link #EXACT_LIMIT} scores, e.g. when sections are rolled up into a
+ * department, the scores are folded into a merging t-digest: a bounded list
+ * of weighted centroids that stays small near the tails and coarse in the
+ * middle, and that two digests can be merged into without the raw scores.
+ *
+ * Serialized field by field so it can be persisted with the incremental
+ * statistics.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public final class ScoreDistribution {
+
+    /** Largest number of scores kept exactly. */
+    static final int EXACT_LIMIT = 1024;
+    // t-digest compression: roughly the number of centroids kept
+    private static final double COMPRESSION = 100;
+    // Scores added in digest mode are buffered and merged in batches
+    private static final int BUFFER_SIZE = 512;
+
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    // Exact mode: the first count entries of values
+    private double[] values = new double[16];
+    private transient boolean sorted; // not persisted: re-sorted after loading
+
+    // Digest mode (values == null): centroids sorted by mean, plus unmerged scores
+    private double[] means;
+    private double[] weights;
+    private double[] buffer;
+    private int bufferSize;
+
+    public void add(double score) {
+        count++;
+        min = Double.isNaN(min) ? score : Math.min(min, score);
+        max = Double.isNaN(max) ? score : Math.max(max, score);
+
+        if (values != null && count <= EXACT_LIMIT) {
+            if (count > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[(int) count - 1] = score;
+            sorted = false;
+            return;
+        }
+        if (values != null) {
+            switchToDigest((int) count - 1);
+        }
+        buffer[bufferSize++] = score;
+        if (bufferSize == BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Fold in a distribution over other students (e.g. another section).
+     */
+    public void merge(ScoreDistribution other) {
+        if (other.count == 0) {
+            return;
+        }
+        long before = count;
+        count += other.count;
+        min = Double.isNaN(min) ? other.min : Math.min(min, other.min);
+        max = Double.isNaN(max) ? other.max : Math.max(max, other.max);
+
+        if (values != null && other.values != null && count <= EXACT_LIMIT) {
+            if (count > values.length) {
+                values = Arrays.copyOf(values, Math.max((int) count, values.length * 2));
+            }
+            System.arraycopy(other.values, 0, values, (int) before, (int) other.count);
+            sorted = false;
+            return;
+        }
+
+        if (values != null) {
+            switchToDigest((int) before);
+        }
+        flush();
+        if (other.values != null) {
+            compress(Arrays.copyOf(other.values, (int) other.count), unitWeights((int) other.count));
+        } else {
+            compress(other.means, other.weights);
+            compress(Arrays.copyOf(other.buffer, other.bufferSize), unitWeights(other.bufferSize));
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Whether quantiles are exact (every score is still kept).
+     */
+    public boolean isExact() {
+        return values != null;
+    }
+
+    /**
+     * Score at quantile q (0..1), or NaN without scores.
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (values != null) {
+            return exactQuantile(q);
+        }
+        flush();
+        return digestQuantile(q);
+    }
+
+    /**
+     * Common percentiles, or null without scores.
+     */
+    public ScorePercentiles toPercentiles() {
+        if (count == 0) {
+            return null;
+        }
+        return new ScorePercentiles(
+                count,
+                isExact(),
+                min,
+                quantile(0.10),
+                quantile(0.25),
+                quantile(0.50),
+                quantile(0.75),
+                quantile(0.90),
+                max);
+    }
+
+    private double exactQuantile(double q) {
+        int n = (int) count;
+        if (!sorted) {
+            Arrays.sort(values, 0, n);
+            sorted = true;
+        }
+        double h = (n - 1) * q;
+        int lo = (int) Math.floor(h);
+        if (lo >= n - 1) {
+            return values[n - 1];
+        }
+        return values[lo] + (h - lo) * (values[lo + 1] - values[lo]);
+    }
+
+    /**
+     * Interpolates between centroid centers, and towards the exact min/max
+     * beyond the first and last center.
+     */
+    private double digestQuantile(double q) {
+        double index = q * count;
+        int last = means.length - 1;
+        if (index <= weights[0] / 2) {
+            return min + (means[0] - min) * (weights[0] == 0 ? 0 : index / (weights[0] / 2));
+        }
+
+        double cumulative = weights[0] / 2; // position of centroid i's center
+        for (int i = 0; i < last; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (index <= cumulative + step) {
+                return means[i] + (means[i + 1] - means[i]) * (index - cumulative) / step;
+            }
+            cumulative += step;
+        }
+
+        double tail = weights[last] / 2;
+        double fraction = tail == 0 ? 1 : Math.min(1, (index - cumulative) / tail);
+        return means[last] + (max - means[last]) * fraction;
+    }
+
+    /**
+     * Fold the first n exact scores into a fresh digest.
+     */
+    private void switchToDigest(int n) {
+        double[] exact = Arrays.copyOf(values, n);
+        values = null;
+        means = new double[0];
+        weights = new double[0];
+        buffer = new double[BUFFER_SIZE];
+        bufferSize = 0;
+        compress(exact, unitWeights(n));
+    }
+
+    private void flush() {
+        if (bufferSize > 0) {
+            double[] pending = Arrays.copyOf(buffer, bufferSize);
+            bufferSize = 0;
+            compress(pending, unitWeights(pending.length));
+        }
+    }
+
+    /**
+     * Merge weighted points into the centroids: sort everything by mean, then
+     * combine neighbours while the merged centroid spans at most one unit of
+     * the k1 scale function.
+     */
+    private void compress(double[] extraMeans, double[] extraWeights) {
+        if (extraMeans.length == 0) {
+            return;
+        }
+        double[] allMeans = concat(means, extraMeans);
+        double[] allWeights = concat(weights, extraWeights);
+
+        Integer[] order = new Integer[allMeans.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double total = 0;
+        for (double weight : allWeights) {
+            total += weight;
+        }
+        double[] newMeans = new double[allMeans.length];
+        double[] newWeights = new double[allMeans.length];
+        int size = 0;
+        double weightBefore = 0;
+        double currentMean = allMeans[order[0]];
+        double currentWeight = allWeights[order[0]];
+        for (int i = 1; i < order.length; i++) {
+            double mean = allMeans[order[i]];
+            double weight = allWeights[order[i]];
+            double qLeft = weightBefore / total;
+            double qRight = (weightBefore + currentWeight + weight) / total;
+            if (scale(qRight) - scale(qLeft) <= 1) {
+                currentMean += (mean - currentMean) * weight / (currentWeight + weight);
+                currentWeight += weight;
+            } else {
+                newMeans[size] = currentMean;
+                newWeights[size++] = currentWeight;
+                weightBefore += currentWeight;
+                currentMean = mean;
+                currentWeight = weight;
+            }
+        }
+        newMeans[size] = currentMean;
+        newWeights[size++] = currentWeight;
+
+        means = Arrays.copyOf(newMeans, size);
+        weights = Arrays.copyOf(newWeights, size);
+    }
+
+    /**
+     * k1 scale function: centroids near q = 0 and q = 1 stay small.
+     */
+    private static double scale(double q) {
+        return COMPRESSION / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+
+    private static double[] unitWeights(int n) {
+        double[] weights = new double[n];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+
+    private static double[] concat(double[] a, double[] b) {
+        double[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
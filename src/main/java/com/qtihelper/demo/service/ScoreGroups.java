@@ -0,0 +1,54 @@
+package com.qtihelper.demo.service;
+
+import java.util.Arrays;
+
+/**
+ * Top 27%, middle 46% and bottom 27% of a quiz's students by total score,
+ * computed once per quiz and kept as bitsets over student indices.
+ *
+ * With very few students the top and bottom groups can overlap, so their
+ * union is kept for middle-group counts.
+ */
+record ScoreGroups(
+        long[] top, long[] bottom, long[] topOrBottom,
+        int topCount, int middleCount, int bottomCount) {
+
+    static final double TOP_PERCENTILE = 0.27;
+    static final double BOTTOM_PERCENTILE = 0.27;
+
+    /**
+     * Rank students by total score (missing scores rank last; ties keep
+     * submission order) and take the groups from both ends.
+     */
+    static ScoreGroups of(ResponseMatrix matrix) {
+        int total = matrix.studentCount();
+
+        Integer[] order = new Integer[total];
+        for (int s = 0; s < total; s++) {
+            order[s] = s;
+        }
+        Arrays.sort(order, (a, b) -> {
+            boolean aScored = matrix.hasScore(a);
+            boolean bScored = matrix.hasScore(b);
+            if (aScored != bScored) {
+                return aScored ? -1 : 1;
+            }
+            return aScored ? Double.compare(matrix.totalScore(b), matrix.totalScore(a)) : 0;
+        });
+
+        int topCount = Math.min((int) Math.ceil(total * TOP_PERCENTILE), total);
+        int bottomCount = Math.min((int) Math.ceil(total * BOTTOM_PERCENTILE), total);
+
+        long[] top = StudentBits.create(total);
+        long[] bottom = StudentBits.create(total);
+        for (int rank = 0; rank < topCount; rank++) {
+            StudentBits.set(top, order[rank]);
+        }
+        for (int rank = total - bottomCount; rank < total; rank++) {
+            StudentBits.set(bottom, order[rank]);
+        }
+
+        return new ScoreGroups(top, bottom, StudentBits.or(top, bottom),
+                topCount, total - topCount - bottomCount, bottomCount);
+    }
+}
@@ -0,0 +1,415 @@
+package com.qtihelper.demo.service;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.QuizStatistics;
+import com.qtihelper.demo.model.QuizStatistics.AnswerStatistics;
+import com.qtihelper.demo.model.QuizStatistics.QuestionStatistics;
+import com.qtihelper.demo.model.QuizStatistics.ReliabilityStatistics;
+import com.qtihelper.demo.model.QuizStatistics.ScorePercentiles;
+import com.qtihelper.demo.model.QuizStatistics.SubmissionStatistics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Mergeable sufficient statistics for one quiz, so new or late submissions can
+ * be folded in without re-reading earlier uploads.
+ *
+ * Holds counts, Welford score moments, the score histogram, per-question and
+ * per-option response counts and score sums (for point-biserial), correct
+ * counts per exact total score (for the top/bottom 27% groups), a
+ * {@link ReliabilityAccumulator}: all fixed in size by the quiz, not the
+ * number of students. Persisted as JSON by {@link IncrementalStatisticsService},
+ * which records the IDs of counted students in their own table.
+ *
+ * Group counts are exact except when students with the same total score
+ * straddle a 27% cutoff; their correct answers are then apportioned.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public final class StatisticsAccumulator {
+
+    private static final double TOP_PERCENTILE = 0.27;
+    private static final double BOTTOM_PERCENTILE = 0.27;
+    private static final int MIN_ALPHA_SUBMISSIONS = 16;
+
+    private Long quizId;
+    private String quizTitle;
+
+    private int count;
+    private long correctTotal;
+    private int scoredCount;
+    private double scoreMean;
+    private double scoreM2;
+    private Double scoreHigh;
+    private Double scoreLow;
+    private Map<Integer, Integer> scoreDistribution = new HashMap<>();
+    // Exact total score -> students; students without a score rank last
+    private TreeMap<Double, Integer> studentsByScore = new TreeMap<>();
+    private int unscoredCount;
+    private ScoreDistribution scoreQuantiles = new ScoreDistribution();
+
+    private List<QuestionAccumulator> questions = new ArrayList<>();
+    private ReliabilityAccumulator reliability;
+    // Students counted since built or loaded; not persisted (kept in their own table)
+    private transient Set<String> studentIds = new HashSet<>();
+
+    private StatisticsAccumulator() {
+    }
+
+    /**
+     * Accumulate the submissions encoded in a response matrix.
+     */
+    public static StatisticsAccumulator of(CanvasQuizDto quiz, List<CanvasQuestionDto> questions,
+            ResponseMatrix matrix) {
+        StatisticsAccumulator accumulator = new StatisticsAccumulator();
+        accumulator.quizId = quiz.id();
+        accumulator.quizTitle = quiz.title();
+        for (CanvasQuestionDto question : questions) {
+            accumulator.questions.add(QuestionAccumulator.of(question));
+        }
+        accumulator.reliability = new ReliabilityAccumulator(questions.size());
+
+        double[] itemScores = new double[questions.size()];
+        for (int s = 0; s < matrix.studentCount(); s++) {
+            accumulator.addStudent(matrix, s, itemScores);
+        }
+        return accumulator;
+    }
+
+    /**
+     * IDs of the students counted since this accumulator was built or loaded
+     * (students without an ID are not listed). They are not persisted with it.
+     */
+    public Set<String> newStudentIds() {
+        return studentIds;
+    }
+
+    /**
+     * Forget the new student IDs once they have been recorded elsewhere.
+     */
+    public void clearNewStudentIds() {
+        studentIds = new HashSet<>();
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int questionCount() {
+        return questions.size();
+    }
+
+    /**
+     * Fold in an accumulator over other students of the same quiz.
+     */
+    public void merge(StatisticsAccumulator other) {
+        if (other.questions.size() != questions.size()) {
+            throw new IllegalArgumentException("Cannot merge statistics over " + other.questions.size()
+                    + " questions into statistics over " + questions.size() + " questions");
+        }
+
+        if (other.scoredCount > 0) {
+            long combined = (long) scoredCount + other.scoredCount;
+            double delta = other.scoreMean - scoreMean;
+            scoreM2 += other.scoreM2 + delta * delta * scoredCount * other.scoredCount / combined;
+            scoreMean += delta * other.scoredCount / combined;
+            scoredCount = (int) combined;
+            scoreHigh = scoreHigh == null ? other.scoreHigh : Math.max(scoreHigh, other.scoreHigh);
+            scoreLow = scoreLow == null ? other.scoreLow : Math.min(scoreLow, other.scoreLow);
+        }
+        count += other.count;
+        correctTotal += other.correctTotal;
+        other.scoreDistribution.forEach((score, students) -> scoreDistribution.merge(score, students, Integer::sum));
+        other.studentsByScore.forEach((score, students) -> studentsByScore.merge(score, students, Integer::sum));
+        scoreQuantiles.merge(other.scoreQuantiles);
+        unscoredCount += other.unscoredCount;
+
+        for (int q = 0; q < questions.size(); q++) {
+            questions.get(q).merge(other.questions.get(q));
+        }
+        reliability.merge(other.reliability);
+        studentIds.addAll(other.studentIds);
+        if (other.quizTitle != null) {
+            quizTitle = other.quizTitle;
+        }
+    }
+
+    /**
+     * Render the accumulated state in the same shape as
+     * {@link StatisticsService#computeStatistics}.
+     */
+    public QuizStatistics toQuizStatistics(Instant generatedAt) {
+        Map<Integer, QuestionStatistics> questionStats = new HashMap<>();
+        double stdev = scoreStdev();
+        for (int q = 0; q < questions.size(); q++) {
+            questionStats.put(q + 1, questionStatistics(q, stdev));
+        }
+
+        return new QuizStatistics(
+                quizId,
+                quizTitle,
+                generatedAt,
+                submissionStatistics(stdev),
+                questionStats,
+                new ReliabilityStatistics(
+                        reliability.itemCount(),
+                        (int) reliability.count(),
+                        alpha(),
+                        reliability.totalVariance()));
+    }
+
+    private void addStudent(ResponseMatrix matrix, int s, double[] itemScores) {
+        String studentId = matrix.studentId(s);
+        if (studentId != null && !studentId.isBlank()) {
+            studentIds.add(studentId);
+        }
+
+        count++;
+        boolean scored = matrix.hasScore(s);
+        double score = matrix.totalScore(s);
+        if (scored) {
+            scoredCount++;
+            double delta = score - scoreMean;
+            scoreMean += delta / scoredCount;
+            scoreM2 += delta * (score - scoreMean);
+            scoreHigh = scoreHigh == null ? score : Math.max(scoreHigh, score);
+            scoreLow = scoreLow == null ? score : Math.min(scoreLow, score);
+            scoreDistribution.merge((int) score, 1, Integer::sum);
+            studentsByScore.merge(score, 1, Integer::sum);
+            scoreQuantiles.add(score);
+        } else {
+            unscoredCount++;
+        }
+
+        for (int q = 0; q < questions.size(); q++) {
+            boolean correct = matrix.isCorrect(s, q);
+            itemScores[q] = correct ? 1.0 : 0.0;
+            if (correct) {
+                correctTotal++;
+            }
+            questions.get(q).add(matrix.response(s, q), correct, scored, score);
+        }
+        reliability.add(itemScores);
+    }
+
+    private double scoreStdev() {
+        return scoredCount >= 2 ? Math.sqrt(scoreM2 / scoredCount) : 0.0;
+    }
+
+    private SubmissionStatistics submissionStatistics(double stdev) {
+        if (scoredCount == 0) {
+            return new SubmissionStatistics(0, 0.0, 0.0, 0.0, 0.0, Map.of(), 0.0, 0.0, null, null);
+        }
+        double correctAvg = (double) correctTotal / count;
+        ScorePercentiles percentiles = scoreQuantiles.toPercentiles();
+        return new SubmissionStatistics(
+                count,
+                scoreMean,
+                scoreHigh,
+                scoreLow,
+                stdev,
+                new HashMap<>(scoreDistribution),
+                correctAvg,
+                questions.size() - correctAvg,
+                null,
+                percentiles);
+    }
+
+    private QuestionStatistics questionStatistics(int q, double stdev) {
+        QuestionAccumulator question = questions.get(q);
+
+        int topCount = Math.min((int) Math.ceil(count * TOP_PERCENTILE), count);
+        int bottomCount = Math.min((int) Math.ceil(count * BOTTOM_PERCENTILE), count);
+        int correctTop = (int) Math.round(correctInTop(question, topCount));
+        int correctBottom = (int) Math.round(correctInBottom(question, bottomCount));
+        int correctMiddle = Math.max(0, question.correct - correctTop - correctBottom);
+
+        double correctRatio = question.responses > 0 ? (double) question.correct / question.responses : 0.0;
+        double variance = correctRatio * (1 - correctRatio);
+
+        Map<String, AnswerStatistics> answerStats = new HashMap<>();
+        Map<String, Integer> firstOptionById = new HashMap<>();
+        for (int i = 0; i < question.answerIds.size(); i++) {
+            String answerId = question.answerIds.get(i);
+            Integer firstOption = firstOptionById.putIfAbsent(answerId, i);
+            int option = firstOption != null ? firstOption : i;
+
+            answerStats.put(answerId, new AnswerStatistics(
+                    answerId,
+                    question.answerTexts.get(i),
+                    question.optionResponses[option],
+                    question.answerCorrect[i],
+                    StatisticsService.calculatePointBiserial(
+                            question.responses,
+                            question.optionScored[option], question.optionScoreSum[option],
+                            question.scoredResponses - question.optionScored[option],
+                            question.scoredResponseSum - question.optionScoreSum[option],
+                            stdev)));
+        }
+
+        return new QuestionStatistics(
+                q + 1,
+                question.questionType,
+                question.responses,
+                question.responses,
+                question.correct,
+                question.responses - question.correct,
+                correctRatio,
+                topCount,
+                count - topCount - bottomCount,
+                bottomCount,
+                correctTop,
+                correctMiddle,
+                correctBottom,
+                variance,
+                Math.sqrt(variance),
+                correctRatio,
+                alpha(),
+                count >= MIN_ALPHA_SUBMISSIONS ? reliability.alphaIfDeleted(q) : null,
+                answerStats);
+    }
+
+    private Double alpha() {
+        return count >= MIN_ALPHA_SUBMISSIONS ? reliability.alpha() : null;
+    }
+
+    /**
+     * Correct answers among the highest-scoring students, walking scores down.
+     */
+    private double correctInTop(QuestionAccumulator question, int groupSize) {
+        return correctInGroup(question, studentsByScore.descendingMap(), groupSize, false);
+    }
+
+    /**
+     * Correct answers among the lowest-ranked students: unscored students
+     * first, then scores walking up.
+     */
+    private double correctInBottom(QuestionAccumulator question, int groupSize) {
+        return correctInGroup(question, studentsByScore, groupSize, true);
+    }
+
+    private double correctInGroup(QuestionAccumulator question, NavigableMap<Double, Integer> scores,
+            int groupSize, boolean unscoredFirst) {
+        int remaining = groupSize;
+        double correct = 0.0;
+
+        if (unscoredFirst && unscoredCount > 0) {
+            int taken = Math.min(remaining, unscoredCount);
+            correct += (double) question.unscoredCorrect * taken / unscoredCount;
+            remaining -= taken;
+        }
+        for (Map.Entry<Double, Integer> bucket : scores.entrySet()) {
+            if (remaining <= 0) {
+                break;
+            }
+            int taken = Math.min(remaining, bucket.getValue());
+            int correctAtScore = question.correctByScore.getOrDefault(bucket.getKey(), 0);
+            correct += (double) correctAtScore * taken / bucket.getValue();
+            remaining -= taken;
+        }
+        if (!unscoredFirst && remaining > 0 && unscoredCount > 0) {
+            int taken = Math.min(remaining, unscoredCount);
+            correct += (double) question.unscoredCorrect * taken / unscoredCount;
+        }
+        return correct;
+    }
+
+    /**
+     * Per-question counts and sums.
+     */
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+            getterVisibility = JsonAutoDetect.Visibility.NONE,
+            isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+    static final class QuestionAccumulator {
+
+        private String questionType;
+        private List<String> answerIds = new ArrayList<>();
+        private List<String> answerTexts = new ArrayList<>();
+        private boolean[] answerCorrect = new boolean[0];
+
+        private int responses;
+        private int correct;
+        private int scoredResponses;
+        private double scoredResponseSum;
+        private int[] optionResponses = new int[0];
+        private int[] optionScored = new int[0];
+        private double[] optionScoreSum = new double[0];
+        // Exact total score -> correct responses from students with that score
+        private Map<Double, Integer> correctByScore = new HashMap<>();
+        private int unscoredCorrect;
+
+        private QuestionAccumulator() {
+        }
+
+        static QuestionAccumulator of(CanvasQuestionDto question) {
+            QuestionAccumulator accumulator = new QuestionAccumulator();
+            accumulator.questionType = question.questionType();
+            List<CanvasAnswerDto> answers = question.answers() != null ? question.answers() : List.of();
+            accumulator.answerCorrect = new boolean[answers.size()];
+            for (int i = 0; i < answers.size(); i++) {
+                accumulator.answerIds.add(String.valueOf(answers.get(i).id()));
+                accumulator.answerTexts.add(answers.get(i).text());
+                accumulator.answerCorrect[i] = answers.get(i).isCorrect();
+            }
+            accumulator.optionResponses = new int[answers.size()];
+            accumulator.optionScored = new int[answers.size()];
+            accumulator.optionScoreSum = new double[answers.size()];
+            return accumulator;
+        }
+
+        void add(int option, boolean isCorrect, boolean scored, double score) {
+            if (option == ResponseMatrix.NO_RESPONSE) {
+                return;
+            }
+            responses++;
+            if (isCorrect) {
+                correct++;
+                if (scored) {
+                    correctByScore.merge(score, 1, Integer::sum);
+                } else {
+                    unscoredCorrect++;
+                }
+            }
+            if (scored) {
+                scoredResponses++;
+                scoredResponseSum += score;
+            }
+            if (option >= 0) {
+                optionResponses[option]++;
+                if (scored) {
+                    optionScored[option]++;
+                    optionScoreSum[option] += score;
+                }
+            }
+        }
+
+        void merge(QuestionAccumulator other) {
+            if (other.optionResponses.length != optionResponses.length) {
+                throw new IllegalArgumentException("Answer options changed for a " + questionType + " question");
+            }
+            responses += other.responses;
+            correct += other.correct;
+            scoredResponses += other.scoredResponses;
+            scoredResponseSum += other.scoredResponseSum;
+            for (int i = 0; i < optionResponses.length; i++) {
+                optionResponses[i] += other.optionResponses[i];
+                optionScored[i] += other.optionScored[i];
+                optionScoreSum[i] += other.optionScoreSum[i];
+            }
+            other.correctByScore.forEach((score, n) -> correctByScore.merge(score, n, Integer::sum));
+            unscoredCorrect += other.unscoredCorrect;
+        }
+    }
+}
@@ -1,30 +1,70 @@
 package com.qtihelper.demo.service;
 
+import com.qtihelper.demo.config.StatisticsProperties;
 import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
 import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
 import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
 import com.qtihelper.demo.model.QuizStatistics;
 import com.qtihelper.demo.model.QuizStatistics.AnswerStatistics;
 import com.qtihelper.demo.model.QuizStatistics.QuestionStatistics;
+import com.qtihelper.demo.model.QuizStatistics.ReliabilityStatistics;
 import com.qtihelper.demo.model.QuizStatistics.SubmissionStatistics;
 import com.qtihelper.demo.model.StudentSubmission;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Service for computing quiz statistics using Canvas-accurate formulas.
+ *
+ * Submissions are first encoded into a columnar {@link ResponseMatrix}; the
+ * score summary and the top/bottom 27% ranking are computed once per quiz,
+ * the groups stored as bitsets over students. Each question's response,
+ * correct, group and per-option counts are popcounts of the matrix bitsets
+ * (intersected with the groups where needed); only the score sums behind
+ * answer point-biserials visit individual students. Reliability (Cronbach's alpha / KR-20) is
+ * accumulated row by row with a {@link ReliabilityAccumulator}.
+ *
+ * Questions are independent once the matrix, ranking and reliability exist,
+ * so large quizzes split the question range across a dedicated fork/join
+ * pool. Each question is still computed by the same sequential code and
+ * written to its own slot, so results are identical to the serial path.
  */
 @Service
 public class StatisticsService {
 
         private static final Logger log = LoggerFactory.getLogger(StatisticsService.class);
-        private static final double TOP_PERCENTILE = 0.27;
-        private static final double BOTTOM_PERCENTILE = 0.27;
+        // Canvas only reports alpha for more than 15 submissions
+        private static final int MIN_ALPHA_SUBMISSIONS = 16;
+
+        private final ForkJoinPool pool; // null when running serially
+        private final long parallelThreshold;
+
+        public StatisticsService(StatisticsProperties props) {
+                this.parallelThreshold = props.parallelThreshold();
+                if (props.parallel()) {
+                        int parallelism = props.parallelism() > 0
+                                        ? props.parallelism()
+                                        : Runtime.getRuntime().availableProcessors();
+                        this.pool = new ForkJoinPool(parallelism, StatisticsService::newWorker, null, false);
+                } else {
+                        this.pool = null;
+                }
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                if (pool != null) {
+                        pool.shutdownNow();
+                }
+        }
 
         /**
          * Compute complete quiz statistics from submissions.
@@ -34,119 +74,234 @@ public class StatisticsService {
                         List<CanvasQuestionDto> questions,
                         List<StudentSubmission> submissions) {
 
-                log.info("Computing statistics for quiz: {} with {} submissions", quiz.title(), submissions.size());
+                return computeStatistics(quiz, questions, ResponseMatrix.build(questions, submissions));
+        }
+
+        /**
+         * Compute complete quiz statistics from already encoded submissions
+         * (e.g. a matrix built while streaming a CSV).
+         */
+        public QuizStatistics computeStatistics(
+                        CanvasQuizDto quiz,
+                        List<CanvasQuestionDto> questions,
+                        ResponseMatrix matrix) {
+
+                log.info("Computing statistics for quiz: {} with {} submissions", quiz.title(),
+                                matrix.studentCount());
 
-                SubmissionStatistics submissionStats = computeSubmissionStatistics(submissions, questions);
-                Map<Integer, QuestionStatistics> questionStats = computeQuestionStatistics(questions, submissions);
+                ScoreSummary scores = summarizeScores(matrix);
+                ScoreGroups ranking = ScoreGroups.of(matrix);
+                ReliabilityAccumulator reliability = accumulateReliability(matrix);
+
+                SubmissionStatistics submissionStats = computeSubmissionStatistics(matrix, scores);
+                Map<Integer, QuestionStatistics> questionStats = computeQuestionStatistics(
+                                questions, matrix, scores, ranking, reliability);
 
                 return new QuizStatistics(
                                 quiz.id(),
                                 quiz.title(),
                                 Instant.now(),
                                 submissionStats,
-                                questionStats);
+                                questionStats,
+                                computeReliabilityStatistics(reliability));
         }
 
         /**
          * Compute submission-level statistics.
          */
-        private SubmissionStatistics computeSubmissionStatistics(
-                        List<StudentSubmission> submissions,
-                        List<CanvasQuestionDto> questions) {
-
-                if (submissions.isEmpty()) {
-                        return new SubmissionStatistics(0, 0.0, 0.0, 0.0, 0.0, Map.of(), 0.0, 0.0, null);
+        private SubmissionStatistics computeSubmissionStatistics(ResponseMatrix matrix, ScoreSummary scores) {
+                if (scores.count() == 0) {
+                        return new SubmissionStatistics(0, 0.0, 0.0, 0.0, 0.0, Map.of(), 0.0, 0.0, null, null);
                 }
 
-                // Extract scores
-                List<Double> scores = submissions.stream()
-                                .map(StudentSubmission::getTotalScore)
-                                .filter(Objects::nonNull)
-                                .toList();
-
-                if (scores.isEmpty()) {
-                        return new SubmissionStatistics(0, 0.0, 0.0, 0.0, 0.0, Map.of(), 0.0, 0.0, null);
+                // Score distribution (score -> count) and quantiles
+                Map<Integer, Integer> scoreDistribution = new HashMap<>();
+                ScoreDistribution quantiles = new ScoreDistribution();
+                for (int s = 0; s < matrix.studentCount(); s++) {
+                        if (matrix.hasScore(s)) {
+                                scoreDistribution.merge((int) matrix.totalScore(s), 1, Integer::sum);
+                                quantiles.add(matrix.totalScore(s));
+                        }
                 }
 
-                // Basic statistics
-                double average = scores.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                double high = scores.stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
-                double low = scores.stream().mapToDouble(Double::doubleValue).min().orElse(0.0);
-                double stdev = calculateStandardDeviation(scores, average);
-
-                // Score distribution (percentile -> count)
-                Map<Integer, Integer> scoreDistribution = calculateScoreDistribution(scores);
-
                 // Correct/incorrect counts
-                double correctAvg = submissions.stream()
-                                .mapToInt(s -> countCorrectAnswers(s, questions))
-                                .average()
-                                .orElse(0.0);
-
-                double incorrectAvg = questions.size() - correctAvg;
+                long correctTotal = 0;
+                for (int q = 0; q < matrix.questionCount(); q++) {
+                        correctTotal += StudentBits.count(matrix.correctStudents(q));
+                }
+                double correctAvg = (double) correctTotal / matrix.studentCount();
+                double incorrectAvg = matrix.questionCount() - correctAvg;
 
                 return new SubmissionStatistics(
-                                submissions.size(),
-                                average,
-                                high,
-                                low,
-                                stdev,
+                                matrix.studentCount(),
+                                scores.mean(),
+                                scores.high(),
+                                scores.low(),
+                                scores.stdev(),
                                 scoreDistribution,
                                 correctAvg,
                                 incorrectAvg,
-                                null // Duration not tracked locally
-                );
+                                null, // Duration not tracked locally
+                                quantiles.toPercentiles());
         }
 
         /**
-         * Compute question-level statistics.
+         * Compute question-level statistics, splitting the questions across the
+         * pool when the quiz is large enough to pay for it.
          */
         private Map<Integer, QuestionStatistics> computeQuestionStatistics(
                         List<CanvasQuestionDto> questions,
-                        List<StudentSubmission> submissions) {
+                        ResponseMatrix matrix,
+                        ScoreSummary scores,
+                        ScoreGroups ranking,
+                        ReliabilityAccumulator reliability) {
+
+                QuestionStatistics[] results = new QuestionStatistics[questions.size()];
+                QuestionTask task = new QuestionTask(
+                                questions, matrix, scores, ranking, reliability, results, 0, questions.size());
+
+                long cells = (long) matrix.studentCount() * questions.size();
+                if (pool != null && questions.size() > 1 && cells >= parallelThreshold) {
+                        pool.invoke(task);
+                } else {
+                        task.computeSerially();
+                }
 
                 Map<Integer, QuestionStatistics> stats = new HashMap<>();
+                for (int i = 0; i < results.length; i++) {
+                        stats.put(i + 1, results[i]);
+                }
+                return stats;
+        }
 
-                for (int i = 0; i < questions.size(); i++) {
-                        CanvasQuestionDto question = questions.get(i);
-                        int questionNumber = i + 1;
+        /**
+         * Computes questions [from, to) into their slots of the shared result
+         * array, halving the range until one question is left.
+         */
+        private final class QuestionTask extends RecursiveAction {
+
+                private final List<CanvasQuestionDto> questions;
+                private final ResponseMatrix matrix;
+                private final ScoreSummary scores;
+                private final ScoreGroups ranking;
+                private final ReliabilityAccumulator reliability;
+                private final QuestionStatistics[] results;
+                private final int from;
+                private final int to;
+
+                QuestionTask(List<CanvasQuestionDto> questions, ResponseMatrix matrix, ScoreSummary scores,
+                                ScoreGroups ranking, ReliabilityAccumulator reliability, QuestionStatistics[] results,
+                                int from, int to) {
+                        this.questions = questions;
+                        this.matrix = matrix;
+                        this.scores = scores;
+                        this.ranking = ranking;
+                        this.reliability = reliability;
+                        this.results = results;
+                        this.from = from;
+                        this.to = to;
+                }
 
-                        QuestionStatistics questionStat = computeSingleQuestionStatistics(
-                                        question, questionNumber, submissions);
+                @Override
+                protected void compute() {
+                        if (to - from <= 1) {
+                                computeSerially();
+                                return;
+                        }
+                        int mid = (from + to) >>> 1;
+                        invokeAll(
+                                        new QuestionTask(questions, matrix, scores, ranking, reliability, results, from, mid),
+                                        new QuestionTask(questions, matrix, scores, ranking, reliability, results, mid, to));
+                }
 
-                        stats.put(questionNumber, questionStat);
+                void computeSerially() {
+                        for (int i = from; i < to; i++) {
+                                results[i] = computeSingleQuestionStatistics(
+                                                questions.get(i), i + 1, matrix, scores, ranking, reliability);
+                        }
                 }
+        }
 
-                return stats;
+        private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+                ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                worker.setName("statistics-" + worker.getPoolIndex());
+                return worker;
         }
 
         /**
-         * Compute statistics for a single question.
+         * Compute statistics for a single question from popcounts over its
+         * response bitsets; only the point-biserial score sums visit students.
          */
         private QuestionStatistics computeSingleQuestionStatistics(
                         CanvasQuestionDto question,
                         int questionNumber,
-                        List<StudentSubmission> submissions) {
-
-                // Get student responses for this question
-                List<StudentResponse> responses = getQuestionResponses(questionNumber, submissions, question);
+                        ResponseMatrix matrix,
+                        ScoreSummary scores,
+                        ScoreGroups ranking,
+                        ReliabilityAccumulator reliability) {
+
+                int q = questionNumber - 1;
+                int options = matrix.optionCount(q);
+
+                // Group counts: popcounts of the question's correct students within each group
+                long[] correct = matrix.correctStudents(q);
+                int correctCount = StudentBits.count(correct);
+                int correctTopCount = StudentBits.countAnd(correct, ranking.top());
+                int correctBottomCount = StudentBits.countAnd(correct, ranking.bottom());
+                int correctMiddleCount = correctCount - StudentBits.countAnd(correct, ranking.topOrBottom());
+
+                // Blank responses are not counted
+                long[] answered = matrix.answeredStudents(q);
+                int totalResponses = StudentBits.count(answered);
+
+                // Responders with a total score, and per-option selections, for point-biserial
+                long[] scoredAnswered = StudentBits.and(answered, matrix.scoredStudents());
+                int scoredResponses = StudentBits.count(scoredAnswered);
+                double scoredResponseSum = matrix.scoreSum(scoredAnswered);
+                int[] optionResponses = new int[options];
+                int[] optionScored = new int[options];
+                double[] optionScoreSum = new double[options];
+                for (int option = 0; option < options; option++) {
+                        long[] picked = matrix.selectedStudents(q, option);
+                        long[] pickedScored = StudentBits.and(picked, matrix.scoredStudents());
+                        optionResponses[option] = StudentBits.count(picked);
+                        optionScored[option] = StudentBits.count(pickedScored);
+                        optionScoreSum[option] = matrix.scoreSum(pickedScored);
+                }
 
-                int totalResponses = responses.size();
-                int correctCount = (int) responses.stream().filter(StudentResponse::isCorrect).count();
                 int incorrectCount = totalResponses - correctCount;
-
                 double correctRatio = totalResponses > 0 ? (double) correctCount / totalResponses : 0.0;
 
-                // Top/Middle/Bottom groupings
-                GroupCounts groups = calculateTopMiddleBottom(responses, submissions);
-
-                // Variance and standard deviation
-                double variance = calculateVariance(responses);
+                // Variance of binary outcomes (correct/incorrect)
+                double variance = correctRatio * (1 - correctRatio);
                 double stdev = Math.sqrt(variance);
 
                 // Answer-level statistics
-                Map<String, AnswerStatistics> answerStats = computeAnswerStatistics(
-                                question, responses, submissions);
+                Map<String, AnswerStatistics> answerStats = new HashMap<>();
+                if (question.answers() != null) {
+                        Map<String, Integer> firstOptionById = new HashMap<>();
+                        for (int i = 0; i < options; i++) {
+                                CanvasAnswerDto answer = question.answers().get(i);
+                                String answerId = String.valueOf(answer.id());
+                                // Responses are matched to the first option with a given ID
+                                Integer firstOption = firstOptionById.putIfAbsent(answerId, i);
+                                int option = firstOption != null ? firstOption : i;
+
+                                Double pointBiserial = calculatePointBiserial(
+                                                totalResponses,
+                                                optionScored[option], optionScoreSum[option],
+                                                scoredResponses - optionScored[option],
+                                                scoredResponseSum - optionScoreSum[option],
+                                                scores.stdev());
+
+                                answerStats.put(answerId, new AnswerStatistics(
+                                                answerId,
+                                                answer.text(),
+                                                optionResponses[option],
+                                                answer.isCorrect(),
+                                                pointBiserial));
+                        }
+                }
 
                 return new QuestionStatistics(
                                 questionNumber,
@@ -156,103 +311,39 @@ public class StatisticsService {
                                 correctCount,
                                 incorrectCount,
                                 correctRatio,
-                                groups.topCount(),
-                                groups.middleCount(),
-                                groups.bottomCount(),
-                                groups.correctTopCount(),
-                                groups.correctMiddleCount(),
-                                groups.correctBottomCount(),
+                                ranking.topCount(),
+                                ranking.middleCount(),
+                                ranking.bottomCount(),
+                                correctTopCount,
+                                correctMiddleCount,
+                                correctBottomCount,
                                 variance,
                                 stdev,
                                 correctRatio, // difficulty_index
-                                calculateCronbachAlpha(submissions, questionNumber),
+                                calculateCronbachAlpha(reliability),
+                                calculateAlphaIfDeleted(reliability, q),
                                 answerStats);
         }
 
         /**
-         * Compute answer-level statistics including point-biserial.
-         */
-        private Map<String, AnswerStatistics> computeAnswerStatistics(
-                        CanvasQuestionDto question,
-                        List<StudentResponse> responses,
-                        List<StudentSubmission> submissions) {
-
-                if (question.answers() == null) {
-                        return Map.of();
-                }
-
-                Map<String, AnswerStatistics> stats = new HashMap<>();
-
-                for (CanvasAnswerDto answer : question.answers()) {
-                        String answerId = String.valueOf(answer.id());
-
-                        int responseCount = (int) responses.stream()
-                                        .filter(r -> answerId.equals(r.selectedAnswer()))
-                                        .count();
-
-                        Double pointBiserial = calculatePointBiserial(
-                                        answer, responses, submissions);
-
-                        stats.put(answerId, new AnswerStatistics(
-                                        answerId,
-                                        answer.text(),
-                                        responseCount,
-                                        answer.isCorrect(),
-                                        pointBiserial));
-                }
-
-                return stats;
-        }
-
-        /**
-         * Calculate point-biserial correlation.
+         * Calculate point-biserial correlation from per-option sums.
          * Formula: r_pb = (M₁ - M₀) / σ × √(p × q)
          */
-        private Double calculatePointBiserial(
-                        CanvasAnswerDto answer,
-                        List<StudentResponse> responses,
-                        List<StudentSubmission> submissions) {
-
-                if (responses.size() < 2) {
-                        return null;
-                }
+        static Double calculatePointBiserial(
+                        int responses,
+                        int selectedCount, double selectedSum,
+                        int notSelectedCount, double notSelectedSum,
+                        double sigma) {
 
-                // Get total scores for students who selected this answer
-                List<Double> scoresSelected = responses.stream()
-                                .filter(r -> String.valueOf(answer.id()).equals(r.selectedAnswer()))
-                                .map(r -> getStudentTotalScore(r.studentId(), submissions))
-                                .filter(Objects::nonNull)
-                                .toList();
-
-                // Get total scores for students who didn't select this answer
-                List<Double> scoresNotSelected = responses.stream()
-                                .filter(r -> !String.valueOf(answer.id()).equals(r.selectedAnswer()))
-                                .map(r -> getStudentTotalScore(r.studentId(), submissions))
-                                .filter(Objects::nonNull)
-                                .toList();
-
-                if (scoresSelected.isEmpty() || scoresNotSelected.isEmpty()) {
+                if (responses < 2 || selectedCount == 0 || notSelectedCount == 0 || sigma == 0) {
                         return null;
                 }
 
-                double m1 = scoresSelected.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                double m0 = scoresNotSelected.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-
-                // Overall standard deviation
-                List<Double> allScores = submissions.stream()
-                                .map(StudentSubmission::getTotalScore)
-                                .filter(Objects::nonNull)
-                                .toList();
-
-                double mean = allScores.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                double sigma = calculateStandardDeviation(allScores, mean);
-
-                if (sigma == 0) {
-                        return null;
-                }
+                double m1 = selectedSum / selectedCount;
+                double m0 = notSelectedSum / notSelectedCount;
 
                 // Proportion who selected this answer
-                double p = (double) scoresSelected.size() / responses.size();
+                double p = (double) selectedCount / responses;
                 double q = 1.0 - p;
 
                 // Point-biserial formula
@@ -260,172 +351,86 @@ public class StatisticsService {
         }
 
         /**
-         * Calculate standard deviation.
+         * Mean, range and population standard deviation of the available total
+         * scores, in two passes over the score column.
          */
-        private double calculateStandardDeviation(List<Double> values, double mean) {
-                if (values.size() < 2) {
-                        return 0.0;
+        private ScoreSummary summarizeScores(ResponseMatrix matrix) {
+                int count = 0;
+                double sum = 0.0;
+                double high = Double.NEGATIVE_INFINITY;
+                double low = Double.POSITIVE_INFINITY;
+
+                for (int s = 0; s < matrix.studentCount(); s++) {
+                        if (matrix.hasScore(s)) {
+                                double score = matrix.totalScore(s);
+                                count++;
+                                sum += score;
+                                high = Math.max(high, score);
+                                low = Math.min(low, score);
+                        }
                 }
 
-                double sumSquaredDiff = values.stream()
-                                .mapToDouble(v -> Math.pow(v - mean, 2))
-                                .sum();
-
-                return Math.sqrt(sumSquaredDiff / values.size());
-        }
-
-        /**
-         * Calculate score distribution as percentile buckets.
-         */
-        private Map<Integer, Integer> calculateScoreDistribution(List<Double> scores) {
-                return scores.stream()
-                                .map(Double::intValue)
-                                .collect(Collectors.groupingBy(
-                                                score -> score,
-                                                Collectors.collectingAndThen(Collectors.counting(), Long::intValue)));
-        }
-
-        /**
-         * Group students into top 27%, middle 46%, bottom 27%.
-         */
-        private GroupCounts calculateTopMiddleBottom(
-                        List<StudentResponse> responses,
-                        List<StudentSubmission> submissions) {
-
-                // Sort students by total score
-                List<StudentSubmission> sorted = submissions.stream()
-                                .sorted(Comparator.comparing(StudentSubmission::getTotalScore,
-                                                Comparator.nullsLast(Comparator.reverseOrder())))
-                                .toList();
-
-                int total = sorted.size();
-                int topCutoff = (int) Math.ceil(total * TOP_PERCENTILE);
-                int bottomCutoff = (int) Math.ceil(total * BOTTOM_PERCENTILE);
-
-                Set<String> topStudents = sorted.stream()
-                                .limit(topCutoff)
-                                .map(StudentSubmission::getStudentId)
-                                .collect(Collectors.toSet());
-
-                Set<String> bottomStudents = sorted.stream()
-                                .skip(Math.max(0, total - bottomCutoff))
-                                .map(StudentSubmission::getStudentId)
-                                .collect(Collectors.toSet());
-
-                int topCount = topStudents.size();
-                int bottomCount = bottomStudents.size();
-                int middleCount = total - topCount - bottomCount;
-
-                int correctTopCount = (int) responses.stream()
-                                .filter(r -> topStudents.contains(r.studentId()) && r.isCorrect())
-                                .count();
-
-                int correctBottomCount = (int) responses.stream()
-                                .filter(r -> bottomStudents.contains(r.studentId()) && r.isCorrect())
-                                .count();
-
-                int correctMiddleCount = (int) responses.stream()
-                                .filter(r -> !topStudents.contains(r.studentId())
-                                                && !bottomStudents.contains(r.studentId())
-                                                && r.isCorrect())
-                                .count();
-
-                return new GroupCounts(
-                                topCount, middleCount, bottomCount,
-                                correctTopCount, correctMiddleCount, correctBottomCount);
-        }
-
-        private record GroupCounts(
-                        int topCount, int middleCount, int bottomCount,
-                        int correctTopCount, int correctMiddleCount, int correctBottomCount) {
-        }
-
-        private record StudentResponse(
-                        String studentId,
-                        String selectedAnswer,
-                        boolean isCorrect) {
-        }
-
-        // Helper methods
-
-        private List<StudentResponse> getQuestionResponses(
-                        int questionNumber,
-                        List<StudentSubmission> submissions,
-                        CanvasQuestionDto question) {
-
-                List<StudentResponse> responses = new ArrayList<>();
+                if (count == 0) {
+                        return new ScoreSummary(0, 0.0, 0.0, 0.0, 0.0);
+                }
 
-                for (StudentSubmission submission : submissions) {
-                        String studentAnswer = submission.getResponses().get(questionNumber);
-                        if (studentAnswer == null || studentAnswer.trim().isEmpty()) {
-                                continue; // Skip if no answer provided
+                double mean = sum / count;
+                double stdev = 0.0;
+                if (count >= 2) {
+                        double sumSquaredDiff = 0.0;
+                        for (int s = 0; s < matrix.studentCount(); s++) {
+                                if (matrix.hasScore(s)) {
+                                        double diff = matrix.totalScore(s) - mean;
+                                        sumSquaredDiff += diff * diff;
+                                }
                         }
-
-                        boolean isCorrect = isAnswerCorrect(studentAnswer, question);
-                        responses.add(new StudentResponse(
-                                        submission.getStudentId(),
-                                        studentAnswer,
-                                        isCorrect));
+                        stdev = Math.sqrt(sumSquaredDiff / count);
                 }
 
-                return responses;
+                return new ScoreSummary(count, mean, high, low, stdev);
         }
 
-        private int countCorrectAnswers(StudentSubmission submission, List<CanvasQuestionDto> questions) {
-                int correctCount = 0;
-
-                for (int i = 0; i < questions.size(); i++) {
-                        int questionNumber = i + 1;
-                        String studentAnswer = submission.getResponses().get(questionNumber);
-
-                        if (studentAnswer != null && isAnswerCorrect(studentAnswer, questions.get(i))) {
-                                correctCount++;
-                        }
-                }
-
-                return correctCount;
+        private record ScoreSummary(int count, double mean, double high, double low, double stdev) {
         }
 
         /**
-         * Check if a student's answer is correct for a given question.
+         * Feed every student's 0/1 item scores (unanswered counts as 0) into a
+         * reliability accumulator, one row at a time.
          */
-        private boolean isAnswerCorrect(String studentAnswer, CanvasQuestionDto question) {
-                if (question.answers() == null || studentAnswer == null) {
-                        return false;
+        private ReliabilityAccumulator accumulateReliability(ResponseMatrix matrix) {
+                ReliabilityAccumulator accumulator = new ReliabilityAccumulator(matrix.questionCount());
+                double[] itemScores = new double[matrix.questionCount()];
+
+                for (int s = 0; s < matrix.studentCount(); s++) {
+                        for (int q = 0; q < itemScores.length; q++) {
+                                itemScores[q] = matrix.isCorrect(s, q) ? 1.0 : 0.0;
+                        }
+                        accumulator.add(itemScores);
                 }
 
-                // For multiple choice/true-false: match answer ID or text
-                return question.answers().stream()
-                                .filter(answer -> answer.isCorrect())
-                                .anyMatch(answer -> String.valueOf(answer.id()).equals(studentAnswer.trim()) ||
-                                                answer.text().equalsIgnoreCase(studentAnswer.trim()));
+                return accumulator;
         }
 
-        private Double getStudentTotalScore(String studentId, List<StudentSubmission> submissions) {
-                return submissions.stream()
-                                .filter(s -> studentId.equals(s.getStudentId()))
-                                .map(StudentSubmission::getTotalScore)
-                                .findFirst()
-                                .orElse(null);
+        private ReliabilityStatistics computeReliabilityStatistics(ReliabilityAccumulator reliability) {
+                return new ReliabilityStatistics(
+                                reliability.itemCount(),
+                                (int) reliability.count(),
+                                calculateCronbachAlpha(reliability),
+                                reliability.totalVariance());
         }
 
-        private double calculateVariance(List<StudentResponse> responses) {
-                // Variance of binary outcomes (correct/incorrect)
-                if (responses.isEmpty()) {
-                        return 0.0;
+        private Double calculateCronbachAlpha(ReliabilityAccumulator reliability) {
+                // Cronbach's alpha requires n > 15
+                if (reliability.count() < MIN_ALPHA_SUBMISSIONS) {
+                        return null;
                 }
-
-                double p = responses.stream().filter(StudentResponse::isCorrect).count() / (double) responses.size();
-                return p * (1 - p);
+                return reliability.alpha();
         }
 
-        private Double calculateCronbachAlpha(List<StudentSubmission> submissions, int questionNumber) {
-                // Cronbach's alpha requires n > 15
-                if (submissions.size() <= 15) {
+        private Double calculateAlphaIfDeleted(ReliabilityAccumulator reliability, int question) {
+                if (reliability.count() < MIN_ALPHA_SUBMISSIONS) {
                         return null;
                 }
-
-                // TODO: Implement Cronbach's alpha calculation
-                return null;
+                return reliability.alphaIfDeleted(question);
         }
 }
@@ -0,0 +1,61 @@
+package com.qtihelper.demo.service;
+
+/**
+ * Helpers for sets of students stored as {@code long[]} bitsets, bit s of
+ * word s / 64 standing for the student at index s of a {@link ResponseMatrix}.
+ *
+ * Group sizes and overlaps are then popcounts over a few words per 64
+ * students instead of per-student lookups.
+ */
+final class StudentBits {
+
+    private StudentBits() {
+    }
+
+    static long[] create(int studentCount) {
+        return new long[(studentCount + 63) >>> 6];
+    }
+
+    static void set(long[] bits, int student) {
+        bits[student >>> 6] |= 1L << student;
+    }
+
+    static boolean get(long[] bits, int student) {
+        return (bits[student >>> 6] & (1L << student)) != 0;
+    }
+
+    static int count(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Size of the intersection of two sets over the same students.
+     */
+    static int countAnd(long[] a, long[] b) {
+        int count = 0;
+        for (int i = 0; i < a.length; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    static long[] and(long[] a, long[] b) {
+        long[] intersection = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            intersection[i] = a[i] & b[i];
+        }
+        return intersection;
+    }
+
+    static long[] or(long[] a, long[] b) {
+        long[] union = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            union[i] = a[i] | b[i];
+        }
+        return union;
+    }
+}
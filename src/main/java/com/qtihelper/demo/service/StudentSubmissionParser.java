@@ -2,6 +2,7 @@ package com.qtihelper.demo.service;
 
 import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
 import com.qtihelper.demo.model.StudentSubmission;
+import com.qtihelper.demo.util.StringPool;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -13,10 +14,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for parsing student submission CSV files.
@@ -40,76 +45,140 @@ public class StudentSubmissionParser {
             InputStream csvInputStream,
             List<CanvasQuestionDto> questions) throws IOException {
 
-        List<StudentSubmission> submissions = new ArrayList<>();
+        try (Stream<StudentSubmission> submissions = streamSubmissions(csvInputStream, questions)) {
+            return submissions.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Parse CSV rows lazily, one submission at a time. Column positions are
+     * resolved once from the header. Rows that fail to parse are logged and
+     * skipped. The stream must be closed (try-with-resources), which closes
+     * the input.
+     *
+     * @param csvInputStream CSV file input stream
+     * @param questions      List of quiz questions for validation
+     * @return Submissions in file order
+     */
+    public Stream<StudentSubmission> streamSubmissions(
+            InputStream csvInputStream,
+            List<CanvasQuestionDto> questions) throws IOException {
 
-        try (Reader reader = new InputStreamReader(csvInputStream);
-                CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT
-                        .withFirstRecordAsHeader()
-                        .withIgnoreHeaderCase()
-                        .withTrim())) {
+        Reader reader = new InputStreamReader(csvInputStream);
+        CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT
+                .withFirstRecordAsHeader()
+                .withIgnoreHeaderCase()
+                .withTrim());
+        Columns columns = Columns.of(csvParser.getHeaderMap(), questions.size());
+        AtomicInteger parsed = new AtomicInteger();
+        StringPool strings = new StringPool();
 
-            for (CSVRecord record : csvParser) {
-                try {
-                    StudentSubmission submission = parseRecord(record, questions.size());
-                    submissions.add(submission);
-                } catch (Exception e) {
-                    log.warn("Failed to parse CSV record {}: {}", record.getRecordNumber(), e.getMessage());
-                }
-            }
-        }
+        return csvParser.stream()
+                .map(record -> parseOrSkip(record, columns, strings, parsed))
+                .filter(Objects::nonNull)
+                .onClose(() -> {
+                    log.info("Parsed {} student submissions from CSV", parsed.get());
+                    try {
+                        csvParser.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
 
-        log.info("Parsed {} student submissions from CSV", submissions.size());
-        return submissions;
+    private StudentSubmission parseOrSkip(CSVRecord record, Columns columns, StringPool strings,
+            AtomicInteger parsed) {
+        try {
+            StudentSubmission submission = parseRecord(record, columns, strings);
+            parsed.incrementAndGet();
+            return submission;
+        } catch (Exception e) {
+            log.warn("Failed to parse CSV record {}: {}", record.getRecordNumber(), e.getMessage());
+            return null;
+        }
     }
 
     /**
      * Parse a single CSV record into a StudentSubmission.
      */
-    private StudentSubmission parseRecord(CSVRecord record, int questionCount) {
-        StudentSubmission submission = new StudentSubmission();
+    private StudentSubmission parseRecord(CSVRecord record, Columns columns, StringPool strings) {
+        StudentSubmission submission = new StudentSubmission(columns.questions().length);
 
         // Parse student info
-        submission.setStudentId(record.get("student_id"));
-        submission.setFirstName(getOptionalField(record, "first_name"));
-        submission.setLastName(getOptionalField(record, "last_name"));
+        if (columns.studentId() < 0) {
+            throw new IllegalArgumentException("Mapping for student_id not found");
+        }
+        submission.setStudentId(get(record, columns.studentId()));
+        submission.setFirstName(getOptionalField(record, columns.firstName()));
+        submission.setLastName(getOptionalField(record, columns.lastName()));
 
         // Parse question responses
-        Map<Integer, String> responses = new HashMap<>();
-        for (int i = 1; i <= questionCount; i++) {
-            String questionKey = "q" + i;
-            if (record.isMapped(questionKey)) {
-                String answer = record.get(questionKey);
+        int[] questionColumns = columns.questions();
+        for (int i = 0; i < questionColumns.length; i++) {
+            if (questionColumns[i] >= 0) {
+                String answer = get(record, questionColumns[i]);
                 if (answer != null && !answer.trim().isEmpty()) {
-                    responses.put(i, answer.trim());
+                    submission.setResponse(i + 1, strings.intern(answer.trim()));
                 }
             }
         }
-        submission.setResponses(responses);
 
         // Parse total score
-        if (record.isMapped("total_score")) {
+        if (columns.totalScore() >= 0) {
+            String scoreStr = get(record, columns.totalScore());
             try {
-                String scoreStr = record.get("total_score");
                 if (scoreStr != null && !scoreStr.trim().isEmpty()) {
                     submission.setTotalScore(Double.parseDouble(scoreStr));
                 }
             } catch (NumberFormatException e) {
                 log.warn("Invalid total_score for student {}: {}",
-                        submission.getStudentId(), record.get("total_score"));
+                        submission.getStudentId(), scoreStr);
             }
         }
 
         return submission;
     }
 
+    /**
+     * Value of a mapped column; a row too short to have it is malformed.
+     */
+    private String get(CSVRecord record, int column) {
+        if (column >= record.size()) {
+            throw new IllegalArgumentException("Column " + column + " missing, record has only "
+                    + record.size() + " values");
+        }
+        return record.get(column);
+    }
+
     /**
      * Get optional field from CSV record.
      */
-    private String getOptionalField(CSVRecord record, String fieldName) {
-        if (record.isMapped(fieldName)) {
-            String value = record.get(fieldName);
+    private String getOptionalField(CSVRecord record, int column) {
+        if (column >= 0) {
+            String value = get(record, column);
             return value != null ? value.trim() : "";
         }
         return "";
     }
+
+    /**
+     * Column positions of the expected fields, -1 where the header lacks one.
+     *
+     * @param questions position of column q(i + 1) at index i
+     */
+    private record Columns(int studentId, int firstName, int lastName, int totalScore, int[] questions) {
+
+        static Columns of(Map<String, Integer> header, int questionCount) {
+            int[] questions = new int[questionCount];
+            for (int i = 0; i < questionCount; i++) {
+                questions[i] = header.getOrDefault("q" + (i + 1), -1);
+            }
+            return new Columns(
+                    header.getOrDefault("student_id", -1),
+                    header.getOrDefault("first_name", -1),
+                    header.getOrDefault("last_name", -1),
+                    header.getOrDefault("total_score", -1),
+                    questions);
+        }
+    }
 }
@@ -0,0 +1,176 @@
+package com.qtihelper.demo.util;
+
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed lookups over one question's answer options.
+ *
+ * Built once per question list so that grading a response is a few hash
+ * lookups instead of re-stripping HTML and re-comparing every option. Text
+ * keys are case-folded with {@link #foldCase(String)}, which makes a set
+ * lookup equivalent to {@link String#equalsIgnoreCase(String)}.
+ *
+ * Two text forms are kept because the grading paths differ: print reports
+ * compare against the HTML-stripped option text, statistics against the raw
+ * Canvas answer text (and answer ID).
+ */
+public final class AnswerIndex {
+
+    private static final AnswerIndex EMPTY = new AnswerIndex(List.of());
+
+    private final List<CanvasAnswerDto> answers;
+    private final String[] texts;
+    private final boolean[] correct;
+    private final List<String> correctTexts;
+    private final Set<String> correctTextKeys;
+    private final List<String> correctTextsLowerCase;
+    private final Map<String, Integer> optionsById;
+    private final Set<String> correctIds;
+    private final Set<String> correctRawTextKeys;
+
+    private AnswerIndex(List<CanvasAnswerDto> answers) {
+        this.answers = answers;
+        this.texts = new String[answers.size()];
+        this.correct = new boolean[answers.size()];
+        this.optionsById = new HashMap<>();
+        this.correctIds = new HashSet<>();
+        this.correctRawTextKeys = new HashSet<>();
+        this.correctTextKeys = new HashSet<>();
+
+        List<String> correctTextList = new ArrayList<>();
+        List<String> lowerCaseList = new ArrayList<>();
+        for (int i = 0; i < answers.size(); i++) {
+            CanvasAnswerDto answer = answers.get(i);
+            String answerId = String.valueOf(answer.id());
+            texts[i] = HtmlUtils.stripHtml(answer.text());
+            correct[i] = answer.isCorrect();
+            // Responses name the first option with a given ID
+            optionsById.putIfAbsent(answerId, i);
+
+            if (correct[i]) {
+                correctTextList.add(texts[i]);
+                correctTextKeys.add(foldCase(texts[i]));
+                lowerCaseList.add(texts[i].toLowerCase());
+                correctIds.add(answerId);
+                if (answer.text() != null) {
+                    correctRawTextKeys.add(foldCase(answer.text()));
+                }
+            }
+        }
+        this.correctTexts = List.copyOf(correctTextList);
+        this.correctTextsLowerCase = List.copyOf(lowerCaseList);
+    }
+
+    /**
+     * Index a question's answers (a question without answers gets an empty index).
+     */
+    public static AnswerIndex of(CanvasQuestionDto question) {
+        return question.answers() != null && !question.answers().isEmpty()
+                ? new AnswerIndex(question.answers())
+                : EMPTY;
+    }
+
+    /**
+     * Index every question of a list, in list order.
+     */
+    public static List<AnswerIndex> forQuestions(List<CanvasQuestionDto> questions) {
+        List<AnswerIndex> indexes = new ArrayList<>(questions.size());
+        for (CanvasQuestionDto question : questions) {
+            indexes.add(of(question));
+        }
+        return indexes;
+    }
+
+    /**
+     * Case-fold a string so that equal keys means equalsIgnoreCase.
+     */
+    public static String foldCase(String text) {
+        StringBuilder folded = new StringBuilder(text.length());
+        text.codePoints().forEach(cp -> folded.appendCodePoint(
+                Character.toLowerCase(Character.toUpperCase(cp))));
+        return folded.toString();
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    public CanvasAnswerDto answer(int option) {
+        return answers.get(option);
+    }
+
+    /**
+     * HTML-stripped text of an option.
+     */
+    public String text(int option) {
+        return texts[option];
+    }
+
+    public boolean isCorrect(int option) {
+        return correct[option];
+    }
+
+    /**
+     * HTML-stripped texts of the correct options, in option order.
+     */
+    public List<String> correctTexts() {
+        return correctTexts;
+    }
+
+    /**
+     * Option named by a letter response ("A" = 0), or -1 if the response is
+     * not a single uppercase letter or names no option.
+     */
+    public int optionForLetter(String response) {
+        if (response.length() != 1 || !Character.isUpperCase(response.charAt(0))) {
+            return -1;
+        }
+        int option = response.charAt(0) - 'A';
+        return option >= 0 && option < texts.length ? option : -1;
+    }
+
+    /**
+     * First option whose answer ID equals the response exactly, or -1.
+     */
+    public int optionForId(String response) {
+        Integer option = optionsById.get(response);
+        return option != null ? option : -1;
+    }
+
+    /**
+     * Whether a text equals (ignoring case) the stripped text of a correct option.
+     */
+    public boolean isCorrectText(String text) {
+        return !correctTextKeys.isEmpty() && correctTextKeys.contains(foldCase(text));
+    }
+
+    /**
+     * Whether a response contains (ignoring case) the stripped text of any correct option.
+     */
+    public boolean containsCorrectText(String response) {
+        String lowerCase = response.toLowerCase();
+        for (String correctText : correctTextsLowerCase) {
+            if (lowerCase.contains(correctText)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a trimmed response names a correct option by ID or by raw answer
+     * text (ignoring case).
+     */
+    public boolean isCorrectIdOrRawText(String trimmed) {
+        return correctIds.contains(trimmed)
+                || (!correctRawTextKeys.isEmpty() && correctRawTextKeys.contains(foldCase(trimmed)));
+    }
+}
@@ -1,6 +1,5 @@
 package com.qtihelper.demo.util;
 
-import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,7 +9,8 @@ import java.util.List;
 /**
  * Utility class for quiz answer evaluation logic.
  * Consolidates duplicate answer matching logic from PrintReportGenerator and
- * QuizPrintViewModelMapper.
+ * QuizPrintViewModelMapper. Option texts and correctness come from a
+ * per-question {@link AnswerIndex} built once per question list.
  */
 public final class QuizEvalUtils {
 
@@ -26,17 +26,16 @@ public final class QuizEvalUtils {
      * Matches student answer by letter (A, B, C, D) to answer index.
      *
      * @param studentAnswer Student's answer (e.g., "A", "B")
-     * @param answers       List of possible answers
+     * @param index         Answer index of the question
      * @return true if the selected answer is correct
      */
-    public static boolean matchByLetter(String studentAnswer, List<CanvasAnswerDto> answers) {
-        int index = studentAnswer.charAt(0) - 'A';
-        log.debug("Matching by letter: {} -> index {}", studentAnswer, index);
-        if (index >= 0 && index < answers.size()) {
-            CanvasAnswerDto selectedAnswer = answers.get(index);
-            boolean isCorrect = selectedAnswer.isCorrect();
+    public static boolean matchByLetter(String studentAnswer, AnswerIndex index) {
+        int option = index.optionForLetter(studentAnswer);
+        log.debug("Matching by letter: {} -> index {}", studentAnswer, option);
+        if (option >= 0) {
+            boolean isCorrect = index.isCorrect(option);
             if (log.isDebugEnabled()) {
-                log.debug("Selected answer '{}' is {}", HtmlUtils.stripHtml(selectedAnswer.text()),
+                log.debug("Selected answer '{}' is {}", index.text(option),
                         isCorrect ? CORRECT_LITERAL : INCORRECT_LITERAL);
             }
             return isCorrect;
@@ -48,23 +47,22 @@ public final class QuizEvalUtils {
      * Matches student answer by text comparison.
      *
      * @param studentAnswer Student's answer text
-     * @param correctTexts  List of correct answer texts
+     * @param index         Answer index of the question
      * @return true if student answer matches any correct text (case-insensitive)
      */
-    public static boolean matchByText(String studentAnswer, List<String> correctTexts) {
+    public static boolean matchByText(String studentAnswer, AnswerIndex index) {
         log.debug("Matching by text: '{}'", studentAnswer);
-        return correctTexts.stream()
-                .anyMatch(ct -> ct.equalsIgnoreCase(studentAnswer.trim()));
+        return index.isCorrectText(studentAnswer.trim());
     }
 
     /**
      * Parses multiple answers from a comma/semicolon-separated string.
      *
      * @param studentAnswer Student's answer string (e.g., "A,B,C" or "A;B;C")
-     * @param answers       List of possible answers (for letter-to-text conversion)
+     * @param index         Answer index of the question (for letter-to-text conversion)
      * @return List of answer texts
      */
-    public static List<String> parseMultipleAnswers(String studentAnswer, List<CanvasAnswerDto> answers) {
+    public static List<String> parseMultipleAnswers(String studentAnswer, AnswerIndex index) {
         String[] studentAnswers = studentAnswer.split("[,;]");
         log.debug("Parsing {} student answers from: '{}'", studentAnswers.length, studentAnswer);
 
@@ -72,7 +70,7 @@ public final class QuizEvalUtils {
         for (String ans : studentAnswers) {
             String trimmed = ans.trim();
             if (!trimmed.isEmpty()) {
-                studentList.add(convertAnswerToText(trimmed, answers));
+                studentList.add(convertAnswerToText(trimmed, index));
             }
         }
         log.debug("Student selected {} answers: {}", studentList.size(), studentList);
@@ -83,13 +81,13 @@ public final class QuizEvalUtils {
      * Determines if a student selected a specific answer option.
      * Handles multiple question types and matching strategies.
      *
-     * @param answer        The answer option
+     * @param answers       Answer index of the question
      * @param studentAnswer The student's answer string
      * @param index         The index of this answer (for letter matching)
      * @param questionType  The type of question
      * @return true if student selected this option
      */
-    public static boolean isStudentAnswerMatch(CanvasAnswerDto answer,
+    public static boolean isStudentAnswerMatch(AnswerIndex answers,
             String studentAnswer,
             int index,
             String questionType) {
@@ -97,7 +95,7 @@ public final class QuizEvalUtils {
             return false;
         }
 
-        String optionText = HtmlUtils.stripHtml(answer.text());
+        String optionText = answers.text(index);
 
         // Handle different question types
         return switch (questionType) {
@@ -142,18 +140,13 @@ public final class QuizEvalUtils {
      * Converts answer letter to text or returns text as-is.
      * Helper method for parseMultipleAnswers.
      *
-     * @param answer  Answer string (letter or text)
-     * @param answers List of possible answers
+     * @param answer Answer string (letter or text)
+     * @param index  Answer index of the question
      * @return Answer text
      */
-    private static String convertAnswerToText(String answer, List<CanvasAnswerDto> answers) {
+    private static String convertAnswerToText(String answer, AnswerIndex index) {
         // If it's a single letter, convert to text
-        if (answer.length() == 1 && Character.isUpperCase(answer.charAt(0))) {
-            int index = answer.charAt(0) - 'A';
-            if (index >= 0 && index < answers.size()) {
-                return HtmlUtils.stripHtml(answers.get(index).text());
-            }
-        }
-        return answer;
+        int option = index.optionForLetter(answer);
+        return option >= 0 ? index.text(option) : answer;
     }
 }
@@ -0,0 +1,42 @@
+package com.qtihelper.demo.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-upload dictionary that hands out one shared instance per distinct
+ * string.
+ *
+ * A quiz export repeats the same few values on every row: answers such as
+ * "A" or "True", the quiz name, the export timestamp. Parsing each row
+ * allocates fresh copies, so a large class keeps thousands of equal
+ * strings alive. Passing values through a pool keeps one of each.
+ *
+ * Only short values are pooled, and the pool stops growing once it is full,
+ * so essay answers and unique IDs cost a lookup at most. Not thread-safe:
+ * use one pool per parsing thread.
+ */
+public final class StringPool {
+
+    private static final int MAX_POOLED_LENGTH = 64;
+    private static final int MAX_SIZE = 4096;
+
+    private final Map<String, String> pool = new HashMap<>();
+
+    /**
+     * The pooled instance equal to {@code value}, or {@code value} itself.
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > MAX_POOLED_LENGTH) {
+            return value;
+        }
+        String pooled = pool.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (pool.size() < MAX_SIZE) {
+            pool.put(value, value);
+        }
+        return value;
+    }
+}
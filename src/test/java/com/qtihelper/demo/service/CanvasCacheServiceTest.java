@@ -0,0 +1,112 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.CanvasProperties;
+import com.qtihelper.demo.dto.canvas.CanvasCourseDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizSummaryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CanvasCacheServiceTest {
+
+    private static final CanvasCourseDto OLD_COURSE = new CanvasCourseDto(1L, "Old name", "C1", "available");
+    private static final CanvasCourseDto NEW_COURSE = new CanvasCourseDto(1L, "New name", "C1", "available");
+
+    private CanvasQuizFetcher fetcher;
+    private CanvasCacheStore store;
+    private CanvasCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        fetcher = mock(CanvasQuizFetcher.class);
+        store = mock(CanvasCacheStore.class);
+        CanvasProperties props = new CanvasProperties("https://canvas.example", "token",
+                null, new CanvasProperties.Cache(true), null, null, null);
+        service = new CanvasCacheService(fetcher, store, props);
+    }
+
+    @Test
+    void getQuizzes_ConcurrentMissesShareOneFetch() throws Exception {
+        CanvasQuizSummaryDto quiz = new CanvasQuizSummaryDto(10L, "Quiz 10", null, 5, 10.0, null, true,
+                "assignment");
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fetcher.getQuizzes(eq("1"), any())).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new CanvasQuizFetcher.ListResult<>(List.of(quiz), null);
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<CanvasQuizSummaryDto>> first = executor.submit(() -> service.getQuizzes("1", false));
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+            Future<List<CanvasQuizSummaryDto>> second = executor.submit(() -> service.getQuizzes("1", false));
+            // Let the second caller reach the in-flight future before the fetch completes
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(List.of(quiz), first.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of(quiz), second.get(5, TimeUnit.SECONDS));
+        }
+        verify(fetcher, times(1)).getQuizzes(eq("1"), any());
+    }
+
+    @Test
+    void getCourses_ExpiredEntryIsServedWhileOneRefreshRuns() throws Exception {
+        stubStoredCourses(null);
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fetcher.getCourses(any())).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new CanvasQuizFetcher.ListResult<>(List.of(NEW_COURSE), null);
+        });
+
+        // Every caller gets the expired list at once; only the first starts a refresh
+        for (int i = 0; i < 3; i++) {
+            assertEquals(List.of(OLD_COURSE), service.getCourses(false));
+        }
+        assertTrue(fetching.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        verify(store, timeout(5000)).save(eq("courses"), eq(List.of(NEW_COURSE)), any(), any());
+        assertEquals(List.of(NEW_COURSE), service.getCourses(false));
+        verify(fetcher, times(1)).getCourses(any());
+    }
+
+    @Test
+    void getCourses_DiskEntryIsServedThenRevalidatedConditionally() {
+        CanvasQuizFetcher.Validators validators = new CanvasQuizFetcher.Validators("\"v1\"",
+                "Wed, 01 Jan 2025 00:00:00 GMT");
+        stubStoredCourses(validators);
+        when(fetcher.getCourses(validators)).thenReturn(CanvasQuizFetcher.ListResult.notModified(validators));
+
+        assertEquals(List.of(OLD_COURSE), service.getCourses(false));
+
+        // Canvas answered 304: the stored list is kept and only its timestamp refreshed
+        verify(store, timeout(5000)).touch(eq("courses"), any());
+        verify(fetcher).getCourses(validators);
+        verify(store, never()).save(any(), any(), any(), any());
+
+        assertEquals(List.of(OLD_COURSE), service.getCourses(false));
+        verify(fetcher, times(1)).getCourses(any());
+    }
+
+    private void stubStoredCourses(CanvasQuizFetcher.Validators validators) {
+        Instant fetchedAt = Instant.now().minus(Duration.ofHours(1));
+        when(store.<List<CanvasCourseDto>>load(eq("courses"), any()))
+                .thenReturn(Optional.of(new CanvasCacheStore.Snapshot<>(List.of(OLD_COURSE), fetchedAt, validators)));
+    }
+}
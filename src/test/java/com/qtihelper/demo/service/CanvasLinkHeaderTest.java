@@ -0,0 +1,38 @@
+package com.qtihelper.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanvasLinkHeaderTest {
+
+    private static final String HEADER = "<https://canvas.example/api/v1/courses?page=1&per_page=100>; rel=\"current\","
+            + "<https://canvas.example/api/v1/courses?page=2&per_page=100>; rel=\"next\","
+            + "<https://canvas.example/api/v1/courses?page=1&per_page=100>; rel=\"first\","
+            + "<https://canvas.example/api/v1/courses?page=7&per_page=100>; rel=\"last\"";
+
+    @Test
+    void find_ReturnsUrlForRel() {
+        assertEquals("https://canvas.example/api/v1/courses?page=2&per_page=100",
+                CanvasLinkHeader.find(HEADER, "next"));
+        assertEquals("https://canvas.example/api/v1/courses?page=7&per_page=100",
+                CanvasLinkHeader.find(HEADER, "last"));
+        assertNull(CanvasLinkHeader.find(HEADER, "prev"));
+        assertNull(CanvasLinkHeader.find(null, "next"));
+    }
+
+    @Test
+    void find_HandlesUnquotedAndMultiValueRels() {
+        assertEquals("https://a/b?x=1,2", CanvasLinkHeader.find("<https://a/b?x=1,2>; rel=next", "next"));
+        assertEquals("https://a/c", CanvasLinkHeader.find("<https://a/c> ; title=\"t\"; rel=\"next last\"", "last"));
+        assertNull(CanvasLinkHeader.find("<https://a/c>; rel=\"nextpage\"", "next"));
+    }
+
+    @Test
+    void queryInt_ParsesPageParameter() {
+        assertEquals(7, CanvasLinkHeader.queryInt("https://a/b?per_page=100&page=7", "page"));
+        assertEquals(2, CanvasLinkHeader.queryInt("https://a/b?page=2#top", "page"));
+        assertNull(CanvasLinkHeader.queryInt("https://a/b?page=bookmark:abc", "page"));
+        assertNull(CanvasLinkHeader.queryInt("https://a/b?per_page=100", "page"));
+    }
+}
@@ -1,22 +1,33 @@
 package com.qtihelper.demo.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qtihelper.demo.config.CanvasClientConfig;
 import com.qtihelper.demo.config.CanvasProperties;
 import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizSummaryDto;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.client.RestClientTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @RestClientTest(CanvasQuizFetcher.class)
+@Import({ CanvasClientConfig.class, CanvasRateLimiter.class })
 @EnableConfigurationProperties(CanvasProperties.class)
 @TestPropertySource(properties = {
         "canvas.url=https://canvas.instructure.com",
@@ -24,6 +35,9 @@ import static org.springframework.test.web.client.response.MockRestResponseCreat
 })
 class CanvasQuizFetcherTest {
 
+    private static final String BASE_URL = "https://canvas.instructure.com";
+    private static final String QUIZZES_URL = BASE_URL + "/api/v1/courses/123/quizzes";
+
     @Autowired
     private CanvasQuizFetcher fetcher;
 
@@ -58,4 +72,108 @@ class CanvasQuizFetcherTest {
 
         assertThrows(RuntimeException.class, () -> fetcher.getQuiz("123", "999"));
     }
+
+    @Test
+    void getQuizzes_ReturnsValidatorsOfSinglePageList() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"v1\"");
+
+        server.expect(requestTo("https://canvas.instructure.com/api/v1/courses/123/quizzes?per_page=100"))
+                .andRespond(withSuccess("[{\"id\": 1, \"title\": \"Quiz\"}]", MediaType.APPLICATION_JSON)
+                        .headers(headers));
+
+        CanvasQuizFetcher.ListResult<?> result = fetcher.getQuizzes("123", null);
+
+        assertEquals(1, result.items().size());
+        assertEquals("\"v1\"", result.validators().etag());
+    }
+
+    @Test
+    void getQuizzes_RevalidatesWithPersistedValidators() {
+        // Nothing cached in memory (e.g. after a restart): the stored ETag is sent
+        server.expect(requestTo("https://canvas.instructure.com/api/v1/courses/456/quizzes?per_page=100"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        CanvasQuizFetcher.ListResult<?> result =
+                fetcher.getQuizzes("456", new CanvasQuizFetcher.Validators("\"v1\"", null));
+
+        assertTrue(result.isNotModified());
+        server.verify();
+    }
+
+    @Test
+    void getQuizzes_FetchesPagesUpToLastConcurrentlyInPageOrder() {
+        RestClient.Builder builder = RestClient.builder().baseUrl(BASE_URL);
+        // Pages 2..4 are requested concurrently, so in no particular order
+        MockRestServiceServer pagedServer = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        CanvasQuizFetcher pagedFetcher = newFetcher(builder);
+
+        pagedServer.expect(requestTo(QUIZZES_URL + "?per_page=100"))
+                .andRespond(quizPage(1, links(2, "next") + ", " + links(4, "last")));
+        // The first of the remaining pages answers last, yet its quiz must still come second
+        pagedServer.expect(requestTo(pageUrl(2))).andRespond(delayed(quizPage(2, links(4, "last"))));
+        pagedServer.expect(requestTo(pageUrl(3))).andRespond(quizPage(3, links(4, "last")));
+        pagedServer.expect(requestTo(pageUrl(4))).andRespond(quizPage(4, links(4, "last")));
+
+        List<CanvasQuizSummaryDto> quizzes = pagedFetcher.getQuizzes("123", null).items();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), quizzes.stream().map(CanvasQuizSummaryDto::id).toList());
+        pagedServer.verify();
+    }
+
+    @Test
+    void getQuizzes_FollowsNextWhenLastHasNoPageNumber() {
+        // Bookmark-style pagination: rel="last" can't be expanded into page URLs
+        String bookmarkLast = "<" + QUIZZES_URL + "?per_page=100&page=bookmark:WzEwXQ>; rel=\"last\"";
+        RestClient.Builder builder = RestClient.builder().baseUrl(BASE_URL);
+        MockRestServiceServer pagedServer = MockRestServiceServer.bindTo(builder).build();
+        CanvasQuizFetcher pagedFetcher = newFetcher(builder);
+
+        pagedServer.expect(requestTo(QUIZZES_URL + "?per_page=100"))
+                .andRespond(quizPage(1, links(2, "next") + ", " + bookmarkLast));
+        pagedServer.expect(requestTo(pageUrl(2)))
+                .andRespond(quizPage(2, links(3, "next") + ", " + bookmarkLast));
+        pagedServer.expect(requestTo(pageUrl(3))).andRespond(quizPage(3, bookmarkLast));
+
+        List<CanvasQuizSummaryDto> quizzes = pagedFetcher.getQuizzes("123", null).items();
+
+        assertEquals(List.of(1L, 2L, 3L), quizzes.stream().map(CanvasQuizSummaryDto::id).toList());
+        pagedServer.verify();
+    }
+
+    /**
+     * A fetcher with parallel pagination on a client bound to its own mock server.
+     */
+    private static CanvasQuizFetcher newFetcher(RestClient.Builder builder) {
+        CanvasProperties props = new CanvasProperties(BASE_URL, "mock-token",
+                new CanvasProperties.Pagination(true, 4), null, null, null, null);
+        return new CanvasQuizFetcher(props, builder.build(), new ObjectMapper());
+    }
+
+    private static String pageUrl(int page) {
+        return QUIZZES_URL + "?per_page=100&page=" + page;
+    }
+
+    private static String links(int page, String rel) {
+        return "<" + pageUrl(page) + ">; rel=\"" + rel + "\"";
+    }
+
+    private static ResponseCreator quizPage(long quizId, String link) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.LINK, link);
+        return withSuccess("[{\"id\": " + quizId + ", \"title\": \"Quiz " + quizId + "\"}]",
+                MediaType.APPLICATION_JSON).headers(headers);
+    }
+
+    private static ResponseCreator delayed(ResponseCreator creator) {
+        return request -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return creator.createResponse(request);
+        };
+    }
 }
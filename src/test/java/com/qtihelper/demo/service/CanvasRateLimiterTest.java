@@ -0,0 +1,190 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.CanvasProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanvasRateLimiterTest {
+
+    private static final URI URL = URI.create("https://canvas.instructure.com/api/v1/courses");
+
+    @Test
+    void intercept_RetriesRateLimitExceeded403() throws IOException {
+        CanvasRateLimiter limiter = newLimiter(4, 3);
+        FakeExecution execution = new FakeExecution(
+                new FakeResponse(403, "403 Forbidden (Rate Limit Exceeded)"),
+                new FakeResponse(200, "[]"));
+
+        try (ClientHttpResponse response = limiter.intercept(request(HttpMethod.GET), new byte[0], execution)) {
+            assertEquals(200, response.getStatusCode().value());
+        }
+
+        assertEquals(2, execution.calls);
+        assertEquals(1, limiter.stats().throttled());
+        assertEquals(1, limiter.stats().retries());
+    }
+
+    @Test
+    void intercept_PassesPermission403ThroughWithReadableBody() throws IOException {
+        CanvasRateLimiter limiter = newLimiter(4, 3);
+        FakeResponse forbidden = new FakeResponse(403, "{\"status\":\"unauthorized\"}");
+        forbidden.headers.set("X-Rate-Limit-Remaining", "600");
+        FakeExecution execution = new FakeExecution(forbidden);
+
+        try (ClientHttpResponse response = limiter.intercept(request(HttpMethod.GET), new byte[0], execution)) {
+            assertEquals(403, response.getStatusCode().value());
+            assertEquals("{\"status\":\"unauthorized\"}", read(response.getBody()));
+        }
+
+        assertEquals(1, execution.calls);
+        assertEquals(0, limiter.stats().throttled());
+    }
+
+    @Test
+    void intercept_Retries5xxForIdempotentMethods() throws IOException {
+        CanvasRateLimiter limiter = newLimiter(4, 3);
+        FakeExecution execution = new FakeExecution(new FakeResponse(503, ""), new FakeResponse(200, "[]"));
+
+        try (ClientHttpResponse response = limiter.intercept(request(HttpMethod.GET), new byte[0], execution)) {
+            assertEquals(200, response.getStatusCode().value());
+        }
+
+        assertEquals(2, execution.calls);
+    }
+
+    @Test
+    void intercept_DoesNotRetry5xxForPost() throws IOException {
+        CanvasRateLimiter limiter = newLimiter(4, 3);
+        FakeExecution execution = new FakeExecution(new FakeResponse(503, ""), new FakeResponse(200, "[]"));
+
+        try (ClientHttpResponse response = limiter.intercept(request(HttpMethod.POST), new byte[0], execution)) {
+            assertEquals(503, response.getStatusCode().value());
+        }
+
+        assertEquals(1, execution.calls);
+        assertEquals(0, limiter.stats().retries());
+    }
+
+    @Test
+    void intercept_HalvesLimitOncePerInterval() throws IOException {
+        CanvasRateLimiter limiter = newLimiter(8, 0);
+
+        for (int i = 0; i < 3; i++) {
+            FakeExecution execution = new FakeExecution(new FakeResponse(429, ""));
+            limiter.intercept(request(HttpMethod.GET), new byte[0], execution).close();
+        }
+
+        assertEquals(4.0, limiter.stats().limit());
+        assertEquals(3, limiter.stats().throttled());
+    }
+
+    @Test
+    void intercept_ReleasesPermitWhenResponseIsClosed() throws IOException {
+        CanvasRateLimiter limiter = newLimiter(4, 3);
+        FakeResponse ok = new FakeResponse(200, "[]");
+        FakeExecution execution = new FakeExecution(ok);
+
+        ClientHttpResponse response = limiter.intercept(request(HttpMethod.GET), new byte[0], execution);
+        assertEquals(1, limiter.stats().inFlight());
+
+        response.close();
+        assertTrue(ok.closed);
+        assertEquals(0, limiter.stats().inFlight());
+
+        // Closing twice must not hand the permit back again
+        response.close();
+        assertEquals(0, limiter.stats().inFlight());
+    }
+
+    private static CanvasRateLimiter newLimiter(int initialConcurrency, int maxRetries) {
+        CanvasProperties.RateLimit rateLimit = new CanvasProperties.RateLimit(
+                initialConcurrency, 16, 150, maxRetries, 1);
+        return new CanvasRateLimiter(new CanvasProperties(
+                "https://canvas.instructure.com", "mock-token", null, null, null, rateLimit, null));
+    }
+
+    private static MockClientHttpRequest request(HttpMethod method) {
+        return new MockClientHttpRequest(method, URL);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Answers each execution with the next queued response.
+     */
+    private static final class FakeExecution implements ClientHttpRequestExecution {
+        private final Deque<FakeResponse> responses = new ArrayDeque<>();
+        private int calls;
+
+        FakeExecution(FakeResponse... responses) {
+            this.responses.addAll(List.of(responses));
+        }
+
+        @Override
+        public ClientHttpResponse execute(HttpRequest request, byte[] body) {
+            calls++;
+            return responses.removeFirst();
+        }
+    }
+
+    /**
+     * Response whose body can only be read once, like a real connection's.
+     */
+    private static final class FakeResponse implements ClientHttpResponse {
+        private final HttpStatusCode status;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final InputStream body;
+        private boolean closed;
+
+        FakeResponse(int status, String body) {
+            this.status = HttpStatusCode.valueOf(status);
+            this.body = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            return "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.model.StudentSubmission;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvSubmissionParserTest {
+
+    private static final String HEADER = "Student ID,Student First Name,Student Last Name,"
+            + "#1 Student Response,#2 Student Response\n";
+
+    private final CsvSubmissionParser parser = new CsvSubmissionParser();
+
+    @Test
+    void recordBoundaries_SkipNewlinesInsideQuotes() {
+        byte[] csv = "a,\"x\ny\"\nb,\"\"\"q\"\"\n\"\nc,z\n".getBytes(StandardCharsets.UTF_8);
+
+        int[] bounds = CsvSubmissionParser.recordBoundaries(ByteBuffer.wrap(csv), 0, 3);
+
+        // Records start at "a", "b" and "c"; no cut lands inside a quoted field
+        assertEquals(4, bounds.length);
+        assertEquals(0, bounds[0]);
+        assertEquals('b', csv[bounds[1]]);
+        assertEquals('c', csv[bounds[2]]);
+        assertEquals(csv.length, bounds[3]);
+    }
+
+    @Test
+    void recordBoundaries_FewerRecordsThanChunks() {
+        byte[] csv = "a,\"1\n2\n3\n4\"\n".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(new int[] { 0, csv.length }, CsvSubmissionParser.recordBoundaries(ByteBuffer.wrap(csv), 0, 4));
+    }
+
+    @Test
+    void parseSubmissionsParallel_MatchesSequentialParse() throws Exception {
+        // Large enough to be split, with multi-line and non-ASCII answers across chunks
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 20_000; i++) {
+            csv.append("S").append(i).append(",Zoë,Nguyễn,")
+                    .append(i % 7 == 0 ? "\"line one\nline, \"\"two\"\"\"" : "Paris").append(',')
+                    .append(i % 3).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        List<StudentSubmission> expected;
+        try (Stream<StudentSubmission> submissions = parser.streamSubmissions(new ByteArrayInputStream(bytes))) {
+            expected = submissions.toList();
+        }
+        List<StudentSubmission> actual = parser.parseSubmissionsParallel(bytes);
+
+        assertEquals(20_000, actual.size());
+        assertEquals(summaries(expected), summaries(actual));
+        assertEquals("line one\nline, \"two\"", actual.get(7).getResponses().get(1));
+    }
+
+    @Test
+    void streamSubmissions_RejectsOutOfRangeQuestionNumbers() {
+        for (String column : List.of("#0 Student Response", "#2000000000 Student Response",
+                "#99999999999 Student Response")) {
+            byte[] csv = ("Student ID," + column + "\nS1,A\n").getBytes(StandardCharsets.UTF_8);
+
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> parser.streamSubmissions(new ByteArrayInputStream(csv)).close());
+            assertTrue(error.getMessage().contains(column), error.getMessage());
+            assertThrows(IllegalArgumentException.class, () -> parser.parseSubmissionsParallel(csv));
+        }
+    }
+
+    private static List<String> summaries(List<StudentSubmission> submissions) {
+        List<String> summaries = new ArrayList<>();
+        for (StudentSubmission submission : submissions) {
+            summaries.add(submission.getStudentId() + "|" + submission.getFullName() + "|"
+                    + submission.getResponses());
+        }
+        return summaries;
+    }
+}
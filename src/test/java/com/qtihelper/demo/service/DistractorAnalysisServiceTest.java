@@ -0,0 +1,72 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.DistractorAnalysis;
+import com.qtihelper.demo.model.DistractorAnalysis.OptionAnalysis;
+import com.qtihelper.demo.model.DistractorAnalysis.OptionFlag;
+import com.qtihelper.demo.model.DistractorAnalysis.QuestionDistractors;
+import com.qtihelper.demo.model.StudentSubmission;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistractorAnalysisServiceTest {
+
+    private static final CanvasQuizDto QUIZ = new CanvasQuizDto(1L, "Capitals", "Desc", 1);
+    private static final CanvasQuestionDto QUESTION = new CanvasQuestionDto(101L, "Q1", "Capital of France?",
+            "multiple_choice_question", 1, 1.0, null, null, null, List.of(
+                    new CanvasAnswerDto(1L, "<p>Paris</p>", null, null, 100, null),
+                    new CanvasAnswerDto(2L, "Lyon", null, null, 0, null),
+                    new CanvasAnswerDto(3L, "Nice", null, null, 0, null),
+                    new CanvasAnswerDto(4L, "Berlin", null, null, 0, null)),
+            null);
+
+    @Test
+    void analyze_CountsOptionsPerScoreGroup() {
+        // Scores 10..1: top 27% = S10..S8, bottom 27% = S3..S1
+        String[] picks = { "1", "1", "1", "1", "3", "2", "2", "2", "2", "Paris" };
+        List<StudentSubmission> submissions = new ArrayList<>();
+        for (int i = 0; i < picks.length; i++) {
+            StudentSubmission submission = new StudentSubmission();
+            submission.setStudentId("S" + (10 - i));
+            submission.setTotalScore(10.0 - i);
+            submission.setResponses(Map.of(1, picks[i]));
+            submissions.add(submission);
+        }
+
+        DistractorAnalysis analysis = new DistractorAnalysisService().analyze(QUIZ, List.of(QUESTION), submissions);
+
+        assertEquals(10, analysis.studentCount());
+        assertEquals(3, analysis.topStudentCount());
+        QuestionDistractors question = analysis.questions().get(0);
+        assertEquals(10, question.responses());
+        assertEquals(1, question.otherResponses());
+
+        OptionAnalysis paris = question.options().get(0);
+        assertEquals("Paris", paris.text());
+        assertTrue(paris.correct());
+        assertEquals(4, paris.selectedCount());
+        assertEquals(3, paris.topSelectedCount());
+        assertEquals(1, paris.middleSelectedCount());
+        assertEquals(0, paris.bottomSelectedCount());
+        assertEquals(1.0, paris.discrimination(), 1e-9);
+        assertEquals(8.5, paris.meanScore(), 1e-9);
+        assertTrue(paris.flags().isEmpty());
+
+        OptionAnalysis lyon = question.options().get(1);
+        assertEquals(4, lyon.selectedCount());
+        assertEquals(2, lyon.bottomSelectedCount());
+        assertTrue(lyon.flags().isEmpty());
+
+        OptionAnalysis berlin = question.options().get(3);
+        assertEquals(0, berlin.selectedCount());
+        assertNull(berlin.meanScore());
+        assertEquals(List.of(OptionFlag.NON_FUNCTIONING), berlin.flags());
+    }
+}
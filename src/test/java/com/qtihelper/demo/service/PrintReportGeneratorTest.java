@@ -140,4 +140,43 @@ class PrintReportGeneratorTest {
                 PrintReport report = generator.generateReport(quiz, List.of(q1), List.of(student), "full");
                 assertTrue(report.getStudentReports().get(0).getQuestionResults().get(0).isCorrect());
         }
+
+        @Test
+        void generateReport_FeedbackAndUnsupportedTypes() {
+                CanvasQuizDto quiz = new CanvasQuizDto(1L, "Quiz", "Desc", 2);
+                List<CanvasAnswerDto> answers = List.of(
+                                new CanvasAnswerDto(1L, "Paris", null, "Capital!", 100, null),
+                                new CanvasAnswerDto(2L, "Lyon", null, "Too far south", 0, null));
+                CanvasQuestionDto q1 = new CanvasQuestionDto(101L, "Q1", "Capital?", "multiple_choice_question", 1,
+                                1.0, "Right", "Wrong", "Think of France", answers, null);
+                CanvasQuestionDto q2 = new CanvasQuestionDto(102L, "Q2", "Explain", "essay_question", 2, 1.0, null,
+                                "See notes", null, List.of(), null);
+
+                StudentSubmission right = new StudentSubmission();
+                right.setStudentId("S1");
+                right.setResponses(Map.of(1, "Paris", 2, "Because"));
+                StudentSubmission wrong = new StudentSubmission();
+                wrong.setStudentId("S2");
+                wrong.setResponses(Map.of(1, "B"));
+
+                PrintReport report = generator.generateReport(quiz, List.of(q1, q2), List.of(right, wrong), "full");
+
+                List<PrintReport.QuestionResult> first = report.getStudentReports().get(0).getQuestionResults();
+                assertTrue(first.get(0).isCorrect());
+                assertEquals(List.of("Paris"), first.get(0).getCorrectAnswers());
+                assertEquals("<div class='feedback-general'>Think of France</div>"
+                                + "<div class='feedback-correct'>Right</div>"
+                                + "<div class='feedback-answer-specific'>Capital!</div>",
+                                first.get(0).getFeedbackToShow());
+                // Unsupported types are never correct but still get the incorrect feedback
+                assertFalse(first.get(1).isCorrect());
+                assertEquals("<div class='feedback-incorrect'>See notes</div>", first.get(1).getFeedbackToShow());
+
+                List<PrintReport.QuestionResult> second = report.getStudentReports().get(1).getQuestionResults();
+                assertFalse(second.get(0).isCorrect());
+                assertEquals("<div class='feedback-general'>Think of France</div>"
+                                + "<div class='feedback-incorrect'>Wrong</div>",
+                                second.get(0).getFeedbackToShow());
+                assertEquals("No answer", second.get(1).getStudentAnswer());
+        }
 }
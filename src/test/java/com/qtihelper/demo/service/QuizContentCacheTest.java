@@ -0,0 +1,131 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.CanvasProperties;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QuizContentCacheTest {
+
+    private CanvasQuizFetcher fetcher;
+
+    @BeforeEach
+    void setUp() {
+        fetcher = mock(CanvasQuizFetcher.class);
+        stubQuiz("1", "10", "Quiz 10");
+        stubQuiz("1", "20", "Quiz 20");
+    }
+
+    @Test
+    void get_SecondCallIsServedFromCache() {
+        QuizContentCache cache = newCache(1_000_000);
+
+        cache.get("1", "10");
+        QuizContentCache.QuizContent content = cache.get("1", "10");
+
+        assertEquals("Quiz 10", content.quiz().title());
+        verify(fetcher, times(1)).getQuiz("1", "10");
+        verify(fetcher, times(1)).getQuizQuestions("1", "10");
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void invalidate_ForcesRefetch() {
+        QuizContentCache cache = newCache(1_000_000);
+
+        cache.get("1", "10");
+        assertTrue(cache.invalidate("1", "10"));
+        cache.get("1", "10");
+
+        verify(fetcher, times(2)).getQuiz("1", "10");
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsedWhenOverWeight() {
+        // Each stubbed quiz weighs 25 characters, so only one fits
+        QuizContentCache cache = newCache(40);
+
+        cache.get("1", "10");
+        cache.get("1", "20");
+        cache.get("1", "10");
+
+        verify(fetcher, times(2)).getQuiz("1", "10");
+        assertEquals(1, cache.stats().entries());
+        assertTrue(cache.stats().evictions() >= 1);
+    }
+
+    @Test
+    void get_ConcurrentMissesShareOneFetch() throws Exception {
+        QuizContentCache cache = newCache(1_000_000);
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fetcher.getQuiz("1", "10")).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new CanvasQuizDto(10L, "Quiz 10", "Desc", 1);
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<QuizContentCache.QuizContent> first = executor.submit(() -> cache.get("1", "10"));
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+            Future<QuizContentCache.QuizContent> second = executor.submit(() -> cache.get("1", "10"));
+            // Let the second caller reach the in-flight future before the fetch completes
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("Quiz 10", first.get(5, TimeUnit.SECONDS).quiz().title());
+            assertEquals("Quiz 10", second.get(5, TimeUnit.SECONDS).quiz().title());
+        }
+        verify(fetcher, times(1)).getQuiz("1", "10");
+    }
+
+    @Test
+    void invalidate_DuringFetchDropsTheStaleResult() throws Exception {
+        QuizContentCache cache = newCache(1_000_000);
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fetcher.getQuiz("1", "10")).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new CanvasQuizDto(10L, "Quiz 10", "Desc", 1);
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<QuizContentCache.QuizContent> inFlight = executor.submit(() -> cache.get("1", "10"));
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+            cache.invalidate("1", "10");
+            release.countDown();
+
+            // The caller still gets its result, but it is not cached
+            assertEquals("Quiz 10", inFlight.get(5, TimeUnit.SECONDS).quiz().title());
+        }
+        assertEquals(0, cache.stats().entries());
+    }
+
+    private QuizContentCache newCache(long maxWeight) {
+        CanvasProperties props = new CanvasProperties("https://canvas.example", "token",
+                null, null, new CanvasProperties.QuizContentCache(maxWeight, 600), null, null);
+        return new QuizContentCache(fetcher, props);
+    }
+
+    private void stubQuiz(String courseId, String quizId, String title) {
+        when(fetcher.getQuiz(courseId, quizId))
+                .thenReturn(new CanvasQuizDto(Long.valueOf(quizId), title, "Desc", 1));
+        when(fetcher.getQuizQuestions(courseId, quizId))
+                .thenReturn(List.of(new CanvasQuestionDto(1L, "Q1", "What is 1+1?", "multiple_choice_question",
+                        1, 1.0, null, null, null, List.of(), null)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.StatisticsProperties;
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.AnalyticsRollup;
+import com.qtihelper.demo.model.AnalyticsRollup.CourseRollup;
+import com.qtihelper.demo.model.AnalyticsRollup.QuizResult;
+import com.qtihelper.demo.model.AnalyticsRollup.ReusedQuestion;
+import com.qtihelper.demo.model.AnalyticsRollup.StudentHistory;
+import com.qtihelper.demo.service.QuizRollupService.QuizUpload;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizRollupServiceTest {
+
+    // Every upload carries its quiz, so Canvas is never asked
+    private final QuizRollupService service = new QuizRollupService(
+            new StatisticsService(new StatisticsProperties(false, 0, 0)), new StudentSubmissionParser(), null);
+
+    @Test
+    void rollUp_StreamsEachQuizAndAggregates() throws Exception {
+        List<QuizUpload> uploads = List.of(
+                upload("week1.csv", "CS101", quiz(1L, "Week 1", "<p>Capital of France?</p>", "Sky color?"),
+                        "S1,Ann,Lee,1,1,2\nS2,Bob,Kim,1,2,1\nS3,Cy,Ng,2,2,0\n"),
+                upload("week2.csv", "CS101", quiz(2L, "Week 2", "Capital of  france?", "Largest ocean?"),
+                        "S1,Ann,Lee,1,2,1\nS2,Bob,Kim,2,2,0\n"),
+                upload("broken.csv", "CS102", quiz(3L, "No questions"), "S9,No,Quiz,1,1,2\n"));
+        List<QuizResult> streamed = new ArrayList<>();
+
+        AnalyticsRollup rollup = service.rollUp(uploads, streamed::add);
+
+        assertEquals(3, streamed.size());
+        assertEquals(2, rollup.quizCount());
+        assertEquals(1, rollup.failedQuizCount());
+        QuizResult broken = streamed.stream().filter(r -> r.index() == 2).findFirst().orElseThrow();
+        assertNull(broken.statistics());
+        assertNotNull(broken.error());
+
+        CourseRollup course = rollup.courses().get(0);
+        assertEquals("CS101", course.courseId());
+        assertEquals(5, course.submissionCount());
+        assertEquals(List.of("week1.csv", "week2.csv"), course.quizzes().stream().map(p -> p.name()).toList());
+        // Week 1: 3 of 6 answers correct, week 2: 1 of 4
+        assertEquals(0.5, course.quizzes().get(0).meanDifficulty(), 1e-9);
+        assertEquals(-0.25, course.difficultySlope(), 1e-9);
+        assertEquals(5, course.scores().count());
+        assertEquals(2.0, course.scores().max());
+
+        assertEquals(1, rollup.reusedQuestions().size());
+        ReusedQuestion reused = rollup.reusedQuestions().get(0);
+        assertEquals("Capital of France?", reused.text());
+        assertEquals(List.of(1L, 2L), reused.occurrences().stream().map(o -> o.quizId()).toList());
+
+        StudentHistory ann = rollup.students().get(0);
+        assertEquals("S1", ann.studentId());
+        assertEquals("Ann Lee", ann.name());
+        assertEquals(List.of(2.0, 1.0), ann.scores().stream().map(s -> s.score()).toList());
+        assertEquals(3, rollup.students().size());
+    }
+
+    private static QuizUpload upload(String name, String courseId, QuizContentCache.QuizContent content,
+            String rows) {
+        String csv = "student_id,first_name,last_name,q1,q2,total_score\n" + rows;
+        return new QuizUpload(name, courseId, null, content, csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static QuizContentCache.QuizContent quiz(long id, String title, String... questionTexts) {
+        List<CanvasQuestionDto> questions = new ArrayList<>();
+        for (int i = 0; i < questionTexts.length; i++) {
+            questions.add(new CanvasQuestionDto(id * 100 + i, "Q" + (i + 1), questionTexts[i],
+                    "multiple_choice_question", i + 1, 1.0, null, null, null, List.of(
+                            new CanvasAnswerDto(1L, "Right", null, null, 100, null),
+                            new CanvasAnswerDto(2L, "Wrong", null, null, 0, null)),
+                    null));
+        }
+        return new QuizContentCache.QuizContent(new CanvasQuizDto(id, title, "", questions.size()), questions);
+    }
+}
@@ -0,0 +1,98 @@
+package com.qtihelper.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReliabilityAccumulatorTest {
+
+    private static final double[][] SCORES = {
+            { 1, 1, 1, 1 },
+            { 1, 1, 0, 1 },
+            { 1, 0, 0, 1 },
+            { 0, 0, 0, 0 },
+            { 1, 1, 1, 0 },
+            { 0, 1, 0, 0 },
+    };
+
+    @Test
+    void alpha_MatchesTwoPassFormula() {
+        ReliabilityAccumulator accumulator = accumulate(SCORES, 0, SCORES.length);
+
+        assertEquals(naiveAlpha(SCORES, -1), accumulator.alpha(), 1e-12);
+        for (int item = 0; item < 4; item++) {
+            assertEquals(naiveAlpha(SCORES, item), accumulator.alphaIfDeleted(item), 1e-12);
+        }
+    }
+
+    @Test
+    void merge_EqualsSinglePass() {
+        Random random = new Random(7);
+        double[][] scores = new double[500][10];
+        for (double[] row : scores) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = random.nextDouble() < 0.3 + 0.05 * i ? 1 : 0;
+            }
+        }
+
+        ReliabilityAccumulator merged = accumulate(scores, 0, 123);
+        merged.merge(accumulate(scores, 123, 500));
+        ReliabilityAccumulator single = accumulate(scores, 0, 500);
+
+        assertEquals(single.count(), merged.count());
+        assertEquals(single.alpha(), merged.alpha(), 1e-12);
+        assertEquals(single.alphaIfDeleted(3), merged.alphaIfDeleted(3), 1e-12);
+        assertEquals(naiveAlpha(scores, -1), single.alpha(), 1e-12);
+    }
+
+    @Test
+    void alpha_NullWhenTotalsDoNotVary() {
+        double[][] scores = { { 1, 0 }, { 0, 1 }, { 1, 0 } };
+
+        assertNull(accumulate(scores, 0, scores.length).alpha());
+    }
+
+    private static ReliabilityAccumulator accumulate(double[][] scores, int from, int to) {
+        ReliabilityAccumulator accumulator = new ReliabilityAccumulator(scores[0].length);
+        for (int s = from; s < to; s++) {
+            accumulator.add(scores[s]);
+        }
+        return accumulator;
+    }
+
+    /**
+     * Alpha from population variances, skipping one item (or none with -1).
+     */
+    private static double naiveAlpha(double[][] scores, int skip) {
+        int items = scores[0].length - (skip >= 0 ? 1 : 0);
+        double[] totals = new double[scores.length];
+        double itemVarianceSum = 0;
+        for (int i = 0; i < scores[0].length; i++) {
+            if (i == skip) {
+                continue;
+            }
+            double[] column = new double[scores.length];
+            for (int s = 0; s < scores.length; s++) {
+                column[s] = scores[s][i];
+                totals[s] += scores[s][i];
+            }
+            itemVarianceSum += variance(column);
+        }
+        return (double) items / (items - 1) * (1 - itemVarianceSum / variance(totals));
+    }
+
+    private static double variance(double[] values) {
+        double mean = 0;
+        for (double v : values) {
+            mean += v;
+        }
+        mean /= values.length;
+        double sum = 0;
+        for (double v : values) {
+            sum += (v - mean) * (v - mean);
+        }
+        return sum / values.length;
+    }
+}
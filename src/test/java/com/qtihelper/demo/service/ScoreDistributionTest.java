@@ -0,0 +1,114 @@
+package com.qtihelper.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qtihelper.demo.model.QuizStatistics.ScorePercentiles;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreDistributionTest {
+
+    @Test
+    void quantile_SmallClassIsExact() {
+        ScoreDistribution distribution = new ScoreDistribution();
+        for (double score : new double[] { 7, 1, 3, 9, 5 }) {
+            distribution.add(score);
+        }
+
+        assertTrue(distribution.isExact());
+        assertEquals(1.0, distribution.quantile(0.0));
+        assertEquals(5.0, distribution.quantile(0.5));
+        assertEquals(9.0, distribution.quantile(1.0));
+        // Linear interpolation between order statistics: h = 4 * 0.1 = 0.4
+        assertEquals(1.8, distribution.quantile(0.1), 1e-12);
+        assertEquals(3.0, distribution.quantile(0.25), 1e-12);
+    }
+
+    @Test
+    void toPercentiles_EmptyIsNull() {
+        ScoreDistribution distribution = new ScoreDistribution();
+
+        assertNull(distribution.toPercentiles());
+        assertTrue(Double.isNaN(distribution.quantile(0.5)));
+    }
+
+    @Test
+    void quantile_LargeAggregateIsClose() {
+        Random random = new Random(3);
+        double[] scores = new double[100_000];
+        ScoreDistribution distribution = new ScoreDistribution();
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = Math.max(0, Math.min(100, 70 + random.nextGaussian() * 12));
+            distribution.add(scores[i]);
+        }
+        Arrays.sort(scores);
+
+        assertFalse(distribution.isExact());
+        for (double q : new double[] { 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99 }) {
+            assertEquals(scores[(int) (q * (scores.length - 1))], distribution.quantile(q), 0.5, "q=" + q);
+        }
+        assertEquals(scores[0], distribution.quantile(0.0));
+        assertEquals(scores[scores.length - 1], distribution.quantile(1.0));
+    }
+
+    @Test
+    void merge_SectionsMatchSinglePass() {
+        Random random = new Random(8);
+        ScoreDistribution all = new ScoreDistribution();
+        ScoreDistribution merged = new ScoreDistribution();
+        for (int section = 0; section < 40; section++) {
+            ScoreDistribution sectionScores = new ScoreDistribution();
+            for (int i = 0; i < 60; i++) {
+                double score = random.nextInt(41) + section * 0.25;
+                sectionScores.add(score);
+                all.add(score);
+            }
+            merged.merge(sectionScores);
+        }
+
+        assertEquals(2400, merged.count());
+        for (double q : new double[] { 0.1, 0.5, 0.9 }) {
+            assertEquals(all.quantile(q), merged.quantile(q), 0.5, "q=" + q);
+        }
+    }
+
+    @Test
+    void merge_SmallSectionsStayExact() {
+        ScoreDistribution first = new ScoreDistribution();
+        ScoreDistribution second = new ScoreDistribution();
+        first.add(1);
+        first.add(2);
+        second.add(3);
+        second.add(4);
+
+        first.merge(second);
+
+        assertTrue(first.isExact());
+        assertEquals(2.5, first.quantile(0.5), 1e-12);
+    }
+
+    @Test
+    void jsonRoundTrip_PreservesQuantiles() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Random random = new Random(5);
+        ScoreDistribution small = new ScoreDistribution();
+        ScoreDistribution large = new ScoreDistribution();
+        for (int i = 0; i < 5000; i++) {
+            double score = random.nextDouble() * 50;
+            if (i < 50) {
+                small.add(score);
+            }
+            large.add(score);
+        }
+
+        for (ScoreDistribution distribution : new ScoreDistribution[] { small, large }) {
+            ScoreDistribution restored = objectMapper.readValue(
+                    objectMapper.writeValueAsString(distribution), ScoreDistribution.class);
+            ScorePercentiles expected = distribution.toPercentiles();
+            assertEquals(expected, restored.toPercentiles());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.qtihelper.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qtihelper.demo.config.StatisticsProperties;
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.QuizStatistics;
+import com.qtihelper.demo.model.QuizStatistics.QuestionStatistics;
+import com.qtihelper.demo.model.StudentSubmission;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsAccumulatorTest {
+
+    private static final CanvasQuizDto QUIZ = new CanvasQuizDto(1L, "Stats Quiz", "Desc", 4);
+    private static final List<CanvasQuestionDto> QUESTIONS = List.of(
+            question(101L), question(102L), question(103L), question(104L));
+
+    @Test
+    void toQuizStatistics_MatchesBatchComputation() {
+        // Distinct scores, so the 27% groups have no ties at the cutoffs
+        List<StudentSubmission> submissions = submissions(40, 11);
+
+        QuizStatistics batch = new StatisticsService(new StatisticsProperties(false, 0, 0))
+                .computeStatistics(QUIZ, QUESTIONS, submissions);
+        QuizStatistics accumulated = accumulate(submissions, 0, 40).toQuizStatistics(Instant.now());
+
+        assertEquivalent(batch, accumulated);
+    }
+
+    @Test
+    void merge_EqualsSingleAccumulation() {
+        List<StudentSubmission> submissions = submissions(40, 23);
+
+        StatisticsAccumulator merged = accumulate(submissions, 0, 25);
+        merged.merge(accumulate(submissions, 25, 40));
+
+        assertEquivalent(accumulate(submissions, 0, 40).toQuizStatistics(Instant.now()),
+                merged.toQuizStatistics(Instant.now()));
+        assertTrue(merged.newStudentIds().contains("S39"));
+        assertFalse(merged.newStudentIds().contains("S40"));
+    }
+
+    @Test
+    void jsonRoundTrip_PreservesState() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<StudentSubmission> submissions = submissions(30, 5);
+        StatisticsAccumulator accumulator = accumulate(submissions, 0, 30);
+
+        String payload = objectMapper.writeValueAsString(accumulator);
+        StatisticsAccumulator restored = objectMapper.readValue(payload, StatisticsAccumulator.class);
+
+        assertEquivalent(accumulator.toQuizStatistics(Instant.now()), restored.toQuizStatistics(Instant.now()));
+        // Student IDs are stored separately, so the payload does not grow with the class
+        assertFalse(payload.contains("S0"));
+        assertTrue(restored.newStudentIds().isEmpty());
+    }
+
+    @Test
+    void merge_RejectsDifferentQuestionCount() {
+        StatisticsAccumulator accumulator = accumulate(submissions(5, 1), 0, 5);
+        StatisticsAccumulator other = StatisticsAccumulator.of(QUIZ, QUESTIONS.subList(0, 3),
+                ResponseMatrix.build(QUESTIONS.subList(0, 3), submissions(5, 1)));
+
+        assertThrows(IllegalArgumentException.class, () -> accumulator.merge(other));
+    }
+
+    private static void assertEquivalent(QuizStatistics expected, QuizStatistics actual) {
+        assertEquals(expected.submissionStatistics().uniqueCount(), actual.submissionStatistics().uniqueCount());
+        assertEquals(expected.submissionStatistics().scoreAverage(), actual.submissionStatistics().scoreAverage(), 1e-9);
+        assertEquals(expected.submissionStatistics().scoreStdev(), actual.submissionStatistics().scoreStdev(), 1e-9);
+        assertEquals(expected.submissionStatistics().scores(),
+                actual.submissionStatistics().scores());
+        assertEquals(expected.submissionStatistics().percentiles(), actual.submissionStatistics().percentiles());
+        assertEquals(expected.reliability().alpha(), actual.reliability().alpha(), 1e-9);
+
+        for (int q = 1; q <= QUESTIONS.size(); q++) {
+            QuestionStatistics e = expected.questionStatistics().get(q);
+            QuestionStatistics a = actual.questionStatistics().get(q);
+            assertEquals(e.responses(), a.responses());
+            assertEquals(e.correctStudentCount(), a.correctStudentCount());
+            assertEquals(e.correctTopStudentCount(), a.correctTopStudentCount());
+            assertEquals(e.correctMiddleStudentCount(), a.correctMiddleStudentCount());
+            assertEquals(e.correctBottomStudentCount(), a.correctBottomStudentCount());
+            assertEquals(e.alphaIfDeleted(), a.alphaIfDeleted(), 1e-9);
+            for (String answerId : List.of("1", "2")) {
+                assertEquals(e.answerStatistics().get(answerId).responses(),
+                        a.answerStatistics().get(answerId).responses());
+                assertEquals(e.answerStatistics().get(answerId).pointBiserial(),
+                        a.answerStatistics().get(answerId).pointBiserial(), 1e-9);
+            }
+        }
+    }
+
+    private static StatisticsAccumulator accumulate(List<StudentSubmission> submissions, int from, int to) {
+        List<StudentSubmission> slice = submissions.subList(from, to);
+        return StatisticsAccumulator.of(QUIZ, QUESTIONS, ResponseMatrix.build(QUESTIONS, slice));
+    }
+
+    private static List<StudentSubmission> submissions(int count, long seed) {
+        Random random = new Random(seed);
+        List<StudentSubmission> submissions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<Integer, String> responses = new HashMap<>();
+            for (int q = 1; q <= QUESTIONS.size(); q++) {
+                double p = random.nextDouble();
+                // Stronger students (higher i) pick the correct answer more often
+                responses.put(q, p < 0.1 ? " " : p < 0.3 + i / (double) count * 0.6 ? "1" : "2");
+            }
+            StudentSubmission submission = new StudentSubmission();
+            submission.setStudentId("S" + i);
+            submission.setTotalScore(i + random.nextDouble() * 0.5);
+            submission.setResponses(responses);
+            submissions.add(submission);
+        }
+        return submissions;
+    }
+
+    private static CanvasQuestionDto question(long id) {
+        return new CanvasQuestionDto(id, "Q" + id, "Agree?", "multiple_choice_question", 1, 1.0,
+                null, null, null, List.of(
+                        new CanvasAnswerDto(1L, "Yes", null, null, 100, null),
+                        new CanvasAnswerDto(2L, "No", null, null, 0, null)),
+                null);
+    }
+}
@@ -0,0 +1,193 @@
+package com.qtihelper.demo.service;
+
+import com.qtihelper.demo.config.StatisticsProperties;
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuizDto;
+import com.qtihelper.demo.model.QuizStatistics;
+import com.qtihelper.demo.model.QuizStatistics.QuestionStatistics;
+import com.qtihelper.demo.model.StudentSubmission;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsServiceTest {
+
+        private static final CanvasQuizDto QUIZ = new CanvasQuizDto(1L, "Stats Quiz", "Desc", 2);
+
+        private StatisticsService service;
+        private List<CanvasQuestionDto> questions;
+
+        @BeforeEach
+        void setUp() {
+                service = new StatisticsService(new StatisticsProperties(false, 0, 0));
+                questions = List.of(question(101L), question(102L));
+        }
+
+        @Test
+        void computeStatistics_SubmissionSummary() {
+                QuizStatistics stats = service.computeStatistics(QUIZ, questions, fixture());
+
+                assertEquals(4, stats.submissionStatistics().uniqueCount());
+                assertEquals(6.0, stats.submissionStatistics().scoreAverage(), 1e-9);
+                assertEquals(10.0, stats.submissionStatistics().scoreHigh(), 1e-9);
+                assertEquals(2.0, stats.submissionStatistics().scoreLow(), 1e-9);
+                assertEquals(Math.sqrt(10.0), stats.submissionStatistics().scoreStdev(), 1e-9);
+                assertEquals(1.0, stats.submissionStatistics().correctCountAverage(), 1e-9);
+        }
+
+        @Test
+        void computeStatistics_QuestionGroupsAndPointBiserial() {
+                QuizStatistics stats = service.computeStatistics(QUIZ, questions, fixture());
+
+                QuestionStatistics q1 = stats.questionStatistics().get(1);
+                assertEquals(4, q1.responses());
+                assertEquals(2, q1.correctStudentCount());
+                assertEquals(2, q1.topStudentCount());
+                assertEquals(2, q1.bottomStudentCount());
+                assertEquals(0, q1.middleStudentCount());
+                assertEquals(2, q1.correctTopStudentCount());
+                assertEquals(0, q1.correctBottomStudentCount());
+                assertEquals(1.0, q1.discriminationIndex(), 1e-9);
+                assertEquals(2, q1.answerStatistics().get("1").responses());
+                assertEquals(3.0 / Math.sqrt(10.0), q1.answerStatistics().get("1").pointBiserial(), 1e-9);
+
+                // Blank responses are skipped; answer text matches count as correct
+                QuestionStatistics q2 = stats.questionStatistics().get(2);
+                assertEquals(3, q2.responses());
+                assertEquals(2, q2.correctStudentCount());
+                assertEquals(1, q2.correctTopStudentCount());
+                assertEquals(1, q2.correctBottomStudentCount());
+                assertEquals(1, q2.answerStatistics().get("1").responses());
+                assertEquals(1, q2.answerStatistics().get("2").responses());
+        }
+
+        @Test
+        void computeStatistics_SingleStudentIsTopAndBottom() {
+                QuizStatistics stats = service.computeStatistics(QUIZ, questions,
+                                List.of(submission("S1", 1.0, "1", "2")));
+
+                QuestionStatistics q1 = stats.questionStatistics().get(1);
+                assertEquals(1, q1.correctTopStudentCount());
+                assertEquals(1, q1.correctBottomStudentCount());
+                assertEquals(0, q1.correctMiddleStudentCount());
+        }
+
+        @Test
+        void computeStatistics_ReliabilityOnlyAboveFifteenSubmissions() {
+                assertNull(service.computeStatistics(QUIZ, questions, fixture()).reliability().alpha());
+
+                List<CanvasQuestionDto> threeQuestions = List.of(question(101L), question(102L), question(103L));
+                List<StudentSubmission> submissions = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                        // Higher-scoring students get more questions right, so items correlate
+                        submissions.add(submission("S" + i, (double) i,
+                                        i >= 5 ? "1" : "2", i >= 10 ? "1" : "2", i % 2 == 0 || i >= 15 ? "1" : "2"));
+                }
+
+                QuizStatistics stats = service.computeStatistics(QUIZ, threeQuestions, submissions);
+
+                assertEquals(3, stats.reliability().itemCount());
+                assertEquals(20, stats.reliability().studentCount());
+                assertNotNull(stats.reliability().alpha());
+                assertTrue(stats.reliability().alpha() > 0);
+                assertEquals(stats.reliability().alpha(), stats.questionStatistics().get(1).alpha());
+                assertNotNull(stats.questionStatistics().get(3).alphaIfDeleted());
+        }
+
+        @Test
+        void computeStatistics_ParallelMatchesSerial() {
+                List<CanvasQuestionDto> manyQuestions = new ArrayList<>();
+                for (int q = 0; q < 12; q++) {
+                        manyQuestions.add(question(200L + q));
+                }
+                Random random = new Random(3);
+                List<StudentSubmission> submissions = new ArrayList<>();
+                for (int i = 0; i < 300; i++) {
+                        String[] answers = new String[manyQuestions.size()];
+                        for (int q = 0; q < answers.length; q++) {
+                                answers[q] = random.nextInt(10) == 0 ? "" : random.nextBoolean() ? "1" : "2";
+                        }
+                        submissions.add(submission("S" + i, random.nextInt(40) / 2.0, answers));
+                }
+
+                StatisticsService parallel = new StatisticsService(new StatisticsProperties(true, 4, 0));
+                try {
+                        QuizStatistics expected = service.computeStatistics(QUIZ, manyQuestions, submissions);
+                        QuizStatistics actual = parallel.computeStatistics(QUIZ, manyQuestions, submissions);
+
+                        assertEquals(expected.questionStatistics(), actual.questionStatistics());
+                        assertEquals(expected.submissionStatistics(), actual.submissionStatistics());
+                        assertEquals(expected.reliability(), actual.reliability());
+                } finally {
+                        parallel.shutdown();
+                }
+        }
+
+        @Test
+        void computeStatistics_StreamedCsvMatchesParsedList() throws Exception {
+                // Enough students that the matrix builder grows its bitsets past one word
+                Random random = new Random(11);
+                StringBuilder csv = new StringBuilder("student_id,first_name,last_name,q1,q2,total_score\n");
+                for (int i = 0; i < 150; i++) {
+                        csv.append("S").append(i).append(",First,Last,")
+                                        .append(random.nextInt(4) == 0 ? "" : random.nextBoolean() ? "1" : "2").append(',')
+                                        .append(random.nextBoolean() ? "1" : "2").append(',')
+                                        .append(random.nextInt(20)).append('\n');
+                }
+                byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+                StudentSubmissionParser parser = new StudentSubmissionParser();
+
+                QuizStatistics expected = service.computeStatistics(QUIZ, questions,
+                                parser.parseSubmissions(new ByteArrayInputStream(bytes), questions));
+                QuizStatistics actual;
+                try (Stream<StudentSubmission> submissions = parser.streamSubmissions(
+                                new ByteArrayInputStream(bytes), questions)) {
+                        actual = service.computeStatistics(QUIZ, questions, ResponseMatrix.build(questions, submissions));
+                }
+
+                assertEquals(150, actual.submissionStatistics().uniqueCount());
+                assertEquals(expected.questionStatistics(), actual.questionStatistics());
+                assertEquals(expected.submissionStatistics(), actual.submissionStatistics());
+                assertEquals(expected.reliability(), actual.reliability());
+        }
+
+        private static CanvasQuestionDto question(long id) {
+                return new CanvasQuestionDto(id, "Q" + id, "Agree?", "multiple_choice_question", 1, 1.0,
+                                null, null, null, List.of(
+                                                new CanvasAnswerDto(1L, "Yes", null, null, 100, null),
+                                                new CanvasAnswerDto(2L, "No", null, null, 0, null)),
+                                null);
+        }
+
+        private static List<StudentSubmission> fixture() {
+                List<StudentSubmission> submissions = new ArrayList<>();
+                submissions.add(submission("S1", 10.0, "1", "1"));
+                submissions.add(submission("S2", 8.0, "1", "2"));
+                submissions.add(submission("S3", 4.0, "2", "yes"));
+                submissions.add(submission("S4", 2.0, "2", " "));
+                return submissions;
+        }
+
+        private static StudentSubmission submission(String studentId, Double score, String... answers) {
+                StudentSubmission submission = new StudentSubmission();
+                submission.setStudentId(studentId);
+                submission.setTotalScore(score);
+                Map<Integer, String> responses = new HashMap<>();
+                for (int i = 0; i < answers.length; i++) {
+                        responses.put(i + 1, answers[i]);
+                }
+                submission.setResponses(responses);
+                return submission;
+        }
+}
@@ -0,0 +1,61 @@
+package com.qtihelper.demo.util;
+
+import com.qtihelper.demo.dto.canvas.CanvasAnswerDto;
+import com.qtihelper.demo.dto.canvas.CanvasQuestionDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerIndexTest {
+
+    private static final CanvasQuestionDto QUESTION = new CanvasQuestionDto(101L, "Q1", "Pick", "multiple_choice_question",
+            1, 1.0, null, null, null, List.of(
+                    new CanvasAnswerDto(7L, "<p>Paris &amp; Lyon</p>", null, null, 100, null),
+                    new CanvasAnswerDto(8L, "Berlin", null, null, 0, null),
+                    new CanvasAnswerDto(7L, "Duplicate ID", null, null, 0, null)),
+            null);
+
+    @Test
+    void lookups_MatchLinearScans() {
+        AnswerIndex index = AnswerIndex.of(QUESTION);
+
+        assertEquals(3, index.size());
+        assertEquals("Paris & Lyon", index.text(0));
+        assertEquals(List.of("Paris & Lyon"), index.correctTexts());
+        assertEquals(0, index.optionForId("7"));
+        assertEquals(-1, index.optionForId(" 7"));
+        assertEquals(1, index.optionForLetter("B"));
+        assertEquals(-1, index.optionForLetter("D"));
+        assertEquals(-1, index.optionForLetter("b"));
+        assertTrue(index.isCorrectText("PARIS & lyon"));
+        assertFalse(index.isCorrectText("Berlin"));
+        assertTrue(index.containsCorrectText("Capital: paris & lyon"));
+        assertTrue(index.isCorrectIdOrRawText("7"));
+        assertTrue(index.isCorrectIdOrRawText("<P>PARIS &AMP; LYON</P>"));
+        assertFalse(index.isCorrectIdOrRawText("8"));
+    }
+
+    @Test
+    void foldCase_AgreesWithEqualsIgnoreCase() {
+        String[][] pairs = { { "Straße", "STRASSE" }, { "İstanbul", "istanbul" }, { "ǅ", "ǆ" }, { "Ωmega", "ωMEGA" },
+                { "Σ", "ς" }, { "abc", "abd" } };
+        for (String[] pair : pairs) {
+            assertEquals(pair[0].equalsIgnoreCase(pair[1]),
+                    AnswerIndex.foldCase(pair[0]).equals(AnswerIndex.foldCase(pair[1])), pair[0] + " / " + pair[1]);
+        }
+    }
+
+    @Test
+    void of_QuestionWithoutAnswers() {
+        CanvasQuestionDto essay = new CanvasQuestionDto(102L, "Q2", "Explain", "essay_question", 2, 1.0,
+                null, null, null, null, null);
+        AnswerIndex index = AnswerIndex.of(essay);
+
+        assertEquals(0, index.size());
+        assertEquals(-1, index.optionForLetter("A"));
+        assertFalse(index.isCorrectText(""));
+        assertFalse(index.isCorrectIdOrRawText("A"));
+    }
+}